@@ -0,0 +1,65 @@
+/**
+ * @file BoardBenchmark.java
+ * @brief This file contains the JMH benchmark of the board lookups.
+ */
+
+package benchmark;
+
+import boardgame.Board;
+import boardgame.Position;
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.chessPieces.Knight;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @brief Measures Board.piece on a board holding pieces on the squares of the middlegame position.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+  private Board board;
+  private int square; ///< Walks the board, so every call looks up another square.
+
+  /**
+   * @brief Places a knight on every occupied square of the middlegame position.
+   */
+
+  @Setup
+  public void setUp() {
+    ChessPiece[][] pieces = ChessMatch.fromFen(MatchBenchmark.MIDDLEGAME).getPieces();
+    board = new ChessBoard();
+    for (int row = 0; row < 8; row++) {
+      for (int column = 0; column < 8; column++) {
+        if (pieces[row][column] != null) {
+          board.placePiece(new Knight(board, pieces[row][column].getColor()), new Position(row, column));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public Object piece() {
+    square = (square + 1) & 63;
+    return board.piece(square >>> 3, square & 7);
+  }
+}
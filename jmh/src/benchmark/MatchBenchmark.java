@@ -0,0 +1,127 @@
+/**
+ * @file MatchBenchmark.java
+ * @brief This file contains the JMH benchmarks of the ChessMatch hot paths.
+ */
+
+package benchmark;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Move;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @brief Measures move generation and the move paths of ChessMatch.
+ *
+ * Every move benchmark plays a move and takes it back, so each operation starts from the same
+ * position. The check test runs on every move played; the checking and mating moves of the
+ * Scholar's mate position also go through the check evasion and checkmate decision.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MatchBenchmark {
+
+  static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+  static final String SCHOLARS_MATE = "r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 4 4";
+
+  private final int[] moves = new int[256];
+  private ChessMatch middlegame;
+  private ChessMatch scholarsMate;
+  private int quietMove; ///< a2a3 in the middlegame position.
+  private int checkingMove; ///< Bxf7+ in the Scholar's mate position.
+  private ChessPosition knight;
+  private ChessPosition queen;
+  private ChessPosition bishop;
+  private ChessPosition f7;
+
+  @Setup
+  public void setUp() {
+    middlegame = ChessMatch.fromFen(MIDDLEGAME);
+    scholarsMate = ChessMatch.fromFen(SCHOLARS_MATE);
+    quietMove = find(middlegame, "a2a3");
+    checkingMove = find(scholarsMate, "c4f7");
+    knight = new ChessPosition('e', 5);
+    queen = new ChessPosition('f', 3);
+    bishop = new ChessPosition('c', 4);
+    f7 = new ChessPosition('f', 7);
+  }
+
+  @Benchmark
+  public int legalMoves() {
+    return middlegame.legalMoves(moves);
+  }
+
+  @Benchmark
+  public int generateMoves() {
+    return middlegame.generateMoves(moves);
+  }
+
+  @Benchmark
+  public boolean[][] possibleMoves() {
+    return middlegame.possibleMoves(knight);
+  }
+
+  @Benchmark
+  public ChessPiece[][] getPieces() {
+    return middlegame.getPieces();
+  }
+
+  @Benchmark
+  public boolean makeUnmakeMove() {
+    middlegame.makeMove(quietMove);
+    boolean check = middlegame.getCheck();
+    middlegame.unmakeMove();
+    return check;
+  }
+
+  @Benchmark
+  public boolean makeUnmakeCheckingMove() {
+    scholarsMate.makeMove(checkingMove);
+    boolean check = scholarsMate.getCheck();
+    scholarsMate.unmakeMove();
+    return check;
+  }
+
+  @Benchmark
+  public ChessPiece performChessMoveCheck() {
+    ChessPiece captured = scholarsMate.performChessMove(bishop, f7);
+    scholarsMate.undo();
+    return captured;
+  }
+
+  @Benchmark
+  public ChessPiece performChessMoveMate() {
+    ChessPiece captured = scholarsMate.performChessMove(queen, f7);
+    scholarsMate.undo();
+    return captured;
+  }
+
+  private static int find(ChessMatch match, String name) {
+    int[] legal = new int[256];
+    int count = match.legalMoves(legal);
+    for (int i = 0; i < count; i++) {
+      if (Move.toString(legal[i]).equals(name)) {
+        return legal[i];
+      }
+    }
+    throw new IllegalStateException("No move " + name + " in " + match.toFen());
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * @file PieceBenchmark.java
+ * @brief This file contains the JMH benchmark of the pseudo-legal moves of each piece type.
+ */
+
+package benchmark;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.PieceType;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @brief Measures ChessPiece.possibleMoves for a white piece of each type in the middlegame position.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PieceBenchmark {
+
+  @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+  public PieceType type;
+
+  private ChessPiece piece;
+
+  @Setup
+  public void setUp() {
+    ChessMatch match = ChessMatch.fromFen(MatchBenchmark.MIDDLEGAME);
+    for (ChessPiece[] row : match.getPieces()) {
+      for (ChessPiece p : row) {
+        if (piece == null && p != null && p.getType() == type && p.getColor() == Color.WHITE) {
+          piece = p;
+        }
+      }
+    }
+    if (piece == null) {
+      throw new IllegalStateException("No white " + type + " in the benchmark position");
+    }
+  }
+
+  @Benchmark
+  public boolean[][] possibleMoves() {
+    return piece.possibleMoves();
+  }
+}
@@ -0,0 +1,57 @@
+/**
+ * @file BuildBook.java
+ * @brief This file contains the book builder tool, which compiles an opening book from PGN files.
+ */
+
+package application;
+
+import chess.book.BookBuilder;
+import chess.book.OpeningBook;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * @brief Compiles the openings of PGN game collections into an opening book file.
+ *
+ * Usage: BuildBook book.bin games.pgn... [--plies n] [--min-games n].
+ */
+
+public class BuildBook {
+
+  /**
+   * @brief Runs the tool.
+   */
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.out.println("Usage: BuildBook book.bin games.pgn... [--plies n] [--min-games n]");
+      System.exit(2);
+    }
+    Path book = Paths.get(args[0]);
+    int plies = BookBuilder.DEFAULT_PLIES;
+    int minGames = 1;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("--plies")) {
+        plies = Integer.parseInt(args[++i]);
+      }
+      else if (args[i].equals("--min-games")) {
+        minGames = Integer.parseInt(args[++i]);
+      }
+    }
+
+    long start = System.nanoTime();
+    BookBuilder builder = new BookBuilder(plies, minGames);
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].startsWith("--")) {
+        i++;
+        continue;
+      }
+      long games = builder.addPgn(Paths.get(args[i]));
+      System.out.println(args[i] + ": " + games + " games");
+    }
+    int entries = builder.write(book);
+    System.out.printf("%s: %d entries (%d bytes) from %d games in %.1f s%n", book, entries,
+        (long)entries * OpeningBook.ENTRY_BYTES, builder.getGames(), (System.nanoTime() - start) / 1e9);
+  }
+}
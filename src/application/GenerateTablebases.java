@@ -0,0 +1,67 @@
+/**
+ * @file GenerateTablebases.java
+ * @brief This file contains the tablebase generator tool, which writes endgame tables into a directory.
+ */
+
+package application;
+
+import chess.tablebase.TablebaseGenerator;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief Generates pawnless endgame tables, by default every table of 3 and 4 pieces.
+ *
+ * Usage: GenerateTablebases directory [KQvK KRvKB ...]. Tables already in the directory are kept.
+ */
+
+public class GenerateTablebases {
+
+  /**
+   * @brief Runs the tool.
+   */
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.out.println("Usage: GenerateTablebases directory [KQvK KRvKB ...]");
+      System.exit(2);
+    }
+    Path directory = Paths.get(args[0]);
+    List<String> names = new ArrayList<>();
+    for (int i = 1; i < args.length; i++) {
+      names.add(args[i]);
+    }
+    if (names.isEmpty()) {
+      names = defaultTables();
+    }
+
+    TablebaseGenerator generator = new TablebaseGenerator(directory);
+    for (String name : names) {
+      long start = System.nanoTime();
+      boolean generated = generator.generate(name);
+      System.out.printf("%s: %s in %.1f s%n", name, generated ? "generated" : "present", (System.nanoTime() - start) / 1e9);
+    }
+  }
+
+  /**
+   * @brief Lists the 3- and 4-piece tables, the smaller first, with white as the stronger side.
+   */
+
+  private static List<String> defaultTables() {
+    String pieces = "QRBN";
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < pieces.length(); i++) {
+      names.add("K" + pieces.charAt(i) + "vK");
+    }
+    for (int i = 0; i < pieces.length(); i++) {
+      for (int j = i; j < pieces.length(); j++) {
+        names.add("K" + pieces.charAt(i) + pieces.charAt(j) + "vK");
+        names.add("K" + pieces.charAt(i) + "vK" + pieces.charAt(j));
+      }
+    }
+    return names;
+  }
+}
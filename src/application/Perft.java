@@ -0,0 +1,183 @@
+/**
+ * @file Perft.java
+ * @brief This file contains the perft tool, which counts move-generation leaf nodes.
+ */
+
+package application;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @brief Counts the positions reachable at a given depth, as a benchmark and as a check of the move generator.
+ *
+ * Run without arguments to verify the generator against the published counts of the standard
+ * test positions. Otherwise: Perft depth [fen] [--divide] [--threads n].
+ */
+
+public class Perft {
+
+  /**
+   * @brief Standard test positions: name, FEN and the expected node count at depths 1, 2, 3...
+   */
+
+  private static final String[][] SUITE = {
+    {"initial", Fen.INITIAL_POSITION, "20 400 8902 197281 4865609"},
+    {"kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "48 2039 97862 4085603"},
+    {"position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "14 191 2812 43238 674624"},
+    {"position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "6 264 9467 422333"},
+    {"position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "44 1486 62379 2103487"},
+    {"position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "46 2079 89890 3894594"}
+  };
+
+  private final ChessMatch chessMatch; ///< The match walked by this counter.
+  private final int[][] moves; ///< One reusable move buffer per ply.
+
+  /**
+   * @brief Constructs a counter over a match.
+   *
+   * @param chessMatch The match to walk. It is left in its original position after each count.
+   * @param maxDepth The deepest count that will be requested.
+   */
+
+  public Perft(ChessMatch chessMatch, int maxDepth) {
+    this.chessMatch = chessMatch;
+    this.moves = new int[Math.max(maxDepth, 1)][256];
+  }
+
+  /**
+   * @brief Counts the leaf nodes of the legal move tree.
+   *
+   * @param depth The number of plies to walk.
+   * @return The number of positions reached after exactly that many plies.
+   */
+
+  public long count(int depth) {
+    return depth == 0 ? 1 : count(depth, 0);
+  }
+
+  private long count(int depth, int ply) {
+    int[] buffer = moves[ply];
+    int n = chessMatch.legalMoves(buffer);
+    if (depth == 1) {
+      return n; // Bulk counting: the leaves are the legal moves themselves
+    }
+    long nodes = 0;
+    for (int i = 0; i < n; i++) {
+      chessMatch.makeMove(buffer[i]);
+      nodes += count(depth - 1, ply + 1);
+      chessMatch.unmakeMove();
+    }
+    return nodes;
+  }
+
+  /**
+   * @brief Counts the leaf nodes below each root move, spreading the root moves over a thread pool.
+   *
+   * Each task builds its own match from the FEN, so the threads share nothing.
+   *
+   * @param fen The root position.
+   * @param depth The number of plies to walk, root move included.
+   * @param threads The number of worker threads.
+   * @return The root moves and their counts, in generation order.
+   */
+
+  public static List<long[]> divide(String fen, int depth, int threads) throws Exception {
+    int[] rootMoves = new int[256];
+    int n = ChessMatch.fromFen(fen).legalMoves(rootMoves);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        int move = rootMoves[i];
+        futures.add(executor.submit(() -> {
+          ChessMatch chessMatch = ChessMatch.fromFen(fen);
+          chessMatch.makeMove(move);
+          return new Perft(chessMatch, depth - 1).count(depth - 1);
+        }));
+      }
+      List<long[]> result = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        result.add(new long[] {rootMoves[i], futures.get(i).get()});
+      }
+      return result;
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * @brief Runs the tool.
+   *
+   * Without arguments, every suite position is counted to its deepest published depth and compared
+   * with the expected result; the exit status is 1 if any count differs.
+   */
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      System.exit(verify() ? 0 : 1);
+    }
+
+    int depth = Integer.parseInt(args[0]);
+    String fen = Fen.INITIAL_POSITION;
+    boolean divide = false;
+    int threads = 1;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("--divide")) {
+        divide = true;
+      }
+      else if (args[i].equals("--threads")) {
+        threads = Integer.parseInt(args[++i]);
+      }
+      else {
+        fen = args[i];
+      }
+    }
+
+    long start = System.nanoTime();
+    long nodes;
+    if (divide || threads > 1) {
+      nodes = 0;
+      for (long[] entry : divide(fen, depth, threads)) {
+        if (divide) {
+          System.out.println(Move.toString((int)entry[0]) + ": " + entry[1]);
+        }
+        nodes += entry[1];
+      }
+    }
+    else {
+      nodes = new Perft(ChessMatch.fromFen(fen), depth).count(depth);
+    }
+    report("depth " + depth, nodes, System.nanoTime() - start);
+  }
+
+  private static boolean verify() {
+    boolean ok = true;
+    for (String[] entry : SUITE) {
+      String[] expected = entry[2].split(" ");
+      ChessMatch chessMatch = ChessMatch.fromFen(entry[1]);
+      Perft perft = new Perft(chessMatch, expected.length);
+      for (int depth = 1; depth <= expected.length; depth++) {
+        long start = System.nanoTime();
+        long nodes = perft.count(depth);
+        boolean match = nodes == Long.parseLong(expected[depth - 1]);
+        ok &= match;
+        report(entry[0] + " depth " + depth + (match ? " OK" : " FAILED, expected " + expected[depth - 1]), nodes, System.nanoTime() - start);
+      }
+    }
+    return ok;
+  }
+
+  private static void report(String label, long nodes, long nanos) {
+    double seconds = nanos / 1e9;
+    System.out.printf("%s: %d nodes in %.3f s (%.0f nodes/s)%n", label, nodes, seconds, nodes / Math.max(seconds, 1e-9));
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * @file PgnReplay.java
+ * @brief This file contains the PGN replay tool, which validates game databases against the rules.
+ */
+
+package application;
+
+import chess.pgn.PgnReplayer;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @brief Replays every game of a PGN file and reports the illegal ones and the throughput.
+ *
+ * Progress is printed every second. Usage: PgnReplay file.pgn [--threads n] [--pending n] [--errors n].
+ */
+
+public class PgnReplay {
+
+  /**
+   * @brief Runs the tool.
+   */
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      System.out.println("Usage: PgnReplay file.pgn [--threads n] [--pending n] [--errors n]");
+      System.exit(2);
+    }
+    Path path = Paths.get(args[0]);
+    int threads = Runtime.getRuntime().availableProcessors();
+    int pending = 0;
+    int maxErrors = 20;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("--threads")) {
+        threads = Integer.parseInt(args[++i]);
+      }
+      else if (args[i].equals("--pending")) {
+        pending = Integer.parseInt(args[++i]);
+      }
+      else if (args[i].equals("--errors")) {
+        maxErrors = Integer.parseInt(args[++i]);
+      }
+    }
+
+    PgnReplayer replayer = new PgnReplayer(threads, Math.max(pending, threads * 64));
+    ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "pgn-progress");
+      thread.setDaemon(true);
+      return thread;
+    });
+    progress.scheduleAtFixedRate(() -> report(replayer), 1, 1, TimeUnit.SECONDS);
+
+    AtomicInteger printed = new AtomicInteger();
+    int errorLimit = maxErrors;
+    replayer.replay(path, (number, game, match, error) -> {
+      if (error != null && printed.incrementAndGet() <= errorLimit) {
+        System.out.println(error.getMessage());
+      }
+    });
+    progress.shutdownNow();
+    report(replayer);
+    System.exit(replayer.getErrors() == 0 ? 0 : 1);
+  }
+
+  private static void report(PgnReplayer replayer) {
+    System.out.printf("%5.1f%%  %d games (%d invalid), %d moves, %.0f games/s, %.0f moves/s%n",
+        replayer.getProgress() * 100, replayer.getGames(), replayer.getErrors(), replayer.getMoves(),
+        replayer.getGamesPerSecond(), replayer.getMovesPerSecond());
+  }
+}
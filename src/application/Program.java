@@ -24,7 +24,7 @@ public class Program {
   /**
    * @brief The entry point of the application.
    * 
-   * This method starts the chess game and handles the game loop until checkmate is reached.
+   * This method starts the chess game and handles the game loop until checkmate or a draw is reached.
    * It prompts players for moves, validates input, performs moves, and checks for special moves like promotions.
    * It also handles exceptions and prints messages accordingly.
    */
@@ -35,7 +35,7 @@ public class Program {
     ChessMatch chessMatch = new ChessMatch();
     List<ChessPiece> captured = new ArrayList<>();
 
-    while (!chessMatch.getCheckMate()) {
+    while (!chessMatch.getCheckMate() && !chessMatch.getDraw()) {
       try {
         // Clear the console screen
         UI.clearScreen();
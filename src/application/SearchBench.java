@@ -0,0 +1,79 @@
+/**
+ * @file SearchBench.java
+ * @brief This file contains the search benchmark, which compares parallel and single-threaded search.
+ */
+
+package application;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+
+/**
+ * @brief Measures the search speed and the parallel speedup over a set of positions.
+ *
+ * Every position is searched to a fixed depth with one thread and then with the requested
+ * number of threads, each time with an empty transposition table. The report gives the nodes
+ * per second of both runs and the speedup in time to depth.
+ * Usage: SearchBench [depth] [--threads n] [--hash megabytes].
+ */
+
+public class SearchBench {
+
+  private static final String[] POSITIONS = {
+    Fen.INITIAL_POSITION,
+    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+    "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+  };
+
+  /**
+   * @brief Runs the benchmark.
+   */
+
+  public static void main(String[] args) {
+    int depth = 7;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int hash = 64;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--threads")) {
+        threads = Integer.parseInt(args[++i]);
+      }
+      else if (args[i].equals("--hash")) {
+        hash = Integer.parseInt(args[++i]);
+      }
+      else {
+        depth = Integer.parseInt(args[i]);
+      }
+    }
+
+    long singleNanos = 0;
+    long parallelNanos = 0;
+    long singleNodes = 0;
+    long parallelNodes = 0;
+    for (String fen : POSITIONS) {
+      SearchResult single = run(fen, depth, 1, hash);
+      SearchResult parallel = run(fen, depth, threads, hash);
+      singleNanos += single.getNanos();
+      parallelNanos += parallel.getNanos();
+      singleNodes += single.getNodes();
+      parallelNodes += parallel.getNodes();
+      System.out.printf("%s%n  1 thread:  %s %.3f s %d nodes/s%n  %d threads: %s %.3f s %d nodes/s, speedup %.2f%n",
+          fen, Move.toString(single.getBestMove()), single.getNanos() / 1e9, single.getNodesPerSecond(),
+          threads, Move.toString(parallel.getBestMove()), parallel.getNanos() / 1e9, parallel.getNodesPerSecond(),
+          (double)single.getNanos() / Math.max(parallel.getNanos(), 1));
+    }
+    System.out.printf("Total: 1 thread %d nodes/s, %d threads %d nodes/s, time to depth %d speedup %.2f%n",
+        singleNodes * 1_000_000_000L / Math.max(singleNanos, 1), threads, parallelNodes * 1_000_000_000L / Math.max(parallelNanos, 1),
+        depth, (double)singleNanos / Math.max(parallelNanos, 1));
+  }
+
+  private static SearchResult run(String fen, int depth, int threads, int hash) {
+    try (ParallelSearch search = new ParallelSearch(threads, hash)) {
+      return search.search(ChessMatch.fromFen(fen), SearchLimits.depth(depth));
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/**
+ * @file SelfPlay.java
+ * @brief This file contains the self-play tool, which measures engine changes over many games.
+ */
+
+package application;
+
+import chess.Move;
+import chess.book.OpeningBook;
+import chess.engine.SearchLimits;
+import chess.record.GameRecord;
+import chess.record.GameRecordWriter;
+import chess.tablebase.Tablebase;
+import chess.tournament.Openings;
+import chess.tournament.SearchPlayer;
+import chess.tournament.Sprt;
+import chess.tournament.TimeControl;
+import chess.tournament.Tournament;
+import chess.tournament.TournamentGame;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @brief Plays a tournament between two engine configurations and reports the score, the Elo
+ * difference and, optionally, a sequential test.
+ *
+ * Every game is written to the results file as soon as it ends, one tab-separated line per game:
+ * index, white, black, result, termination, plies, opening FEN and moves in coordinate notation.
+ * The two players run the same engine; the second one may get another clock or table size.
+ * Usage: SelfPlay [--games n] [--threads n] [--tc base+inc] [--tc2 base+inc] [--depth n]
+ * [--nodes n] [--hash mb] [--hash2 mb] [--openings file] [--out file] [--records file]
+ * [--max-plies n] [--sprt elo0 elo1] [--book file] [--tablebases directory].
+ */
+
+public class SelfPlay {
+
+  /**
+   * @brief Runs the tool.
+   */
+
+  public static void main(String[] args) throws Exception {
+    int games = 100;
+    int threads = Runtime.getRuntime().availableProcessors();
+    TimeControl firstTime = TimeControl.parse("1+0.01");
+    TimeControl secondTime = null;
+    int depth = 0;
+    long nodes = 0;
+    int hash = 16;
+    int secondHash = 0;
+    String openingsFile = null;
+    String out = "selfplay-results.txt";
+    String recordsFile = null;
+    String bookFile = null;
+    String tablebaseDirectory = null;
+    int maxPlies = Tournament.DEFAULT_MAX_PLIES;
+    Sprt sprt = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--games": games = Integer.parseInt(args[++i]); break;
+        case "--threads": threads = Integer.parseInt(args[++i]); break;
+        case "--tc": firstTime = TimeControl.parse(args[++i]); break;
+        case "--tc2": secondTime = TimeControl.parse(args[++i]); break;
+        case "--depth": depth = Integer.parseInt(args[++i]); break;
+        case "--nodes": nodes = Long.parseLong(args[++i]); break;
+        case "--hash": hash = Integer.parseInt(args[++i]); break;
+        case "--hash2": secondHash = Integer.parseInt(args[++i]); break;
+        case "--openings": openingsFile = args[++i]; break;
+        case "--out": out = args[++i]; break;
+        case "--records": recordsFile = args[++i]; break;
+        case "--book": bookFile = args[++i]; break;
+        case "--tablebases": tablebaseDirectory = args[++i]; break;
+        case "--max-plies": maxPlies = Integer.parseInt(args[++i]); break;
+        case "--sprt":
+          sprt = new Sprt(Double.parseDouble(args[i + 1]), Double.parseDouble(args[i + 2]), 0.05, 0.05);
+          i += 2;
+          break;
+        default:
+          System.out.println("Unknown option " + args[i]);
+          System.exit(2);
+      }
+    }
+    if (depth > 0 || nodes > 0) {
+      // A fixed budget makes the games reproducible on any machine, whatever the load
+      firstTime = TimeControl.fixed(new SearchLimits(depth, nodes, 0));
+      secondTime = null;
+    }
+    if (secondTime == null) {
+      secondTime = firstTime;
+    }
+
+    Openings openings = (openingsFile == null) ? Openings.builtIn() : Openings.read(Paths.get(openingsFile));
+    OpeningBook book = (bookFile == null) ? null : new OpeningBook(Paths.get(bookFile));
+    SearchPlayer first = new SearchPlayer("first", hash, book);
+    SearchPlayer second = new SearchPlayer("second", secondHash > 0 ? secondHash : hash, book);
+    if (tablebaseDirectory != null) {
+      Tablebase tablebase = new Tablebase(Paths.get(tablebaseDirectory));
+      first.setTablebase(tablebase);
+      second.setTablebase(tablebase);
+    }
+    Tournament tournament = new Tournament(first, firstTime, second, secondTime, openings, threads);
+    tournament.setMaxPlies(maxPlies);
+    tournament.setSprt(sprt);
+    System.out.println(games + " games, " + threads + " threads, " + openings.size() + " openings, "
+        + first + " " + firstTime + " vs " + second + " " + secondTime);
+
+    ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "selfplay-progress");
+      thread.setDaemon(true);
+      return thread;
+    });
+    progress.scheduleAtFixedRate(() -> report(tournament), 1, 1, TimeUnit.SECONDS);
+
+    try (Writer results = Files.newBufferedWriter(Paths.get(out), StandardCharsets.US_ASCII);
+        GameRecordWriter records = (recordsFile == null) ? null
+            : new GameRecordWriter(new BufferedOutputStream(Files.newOutputStream(Paths.get(recordsFile))))) {
+      tournament.run(games, game -> {
+        String line = line(game);
+        // Games end seldom next to the time they take to play, so one lock per game costs nothing
+        synchronized (results) {
+          try {
+            results.write(line);
+            results.flush();
+            if (records != null) {
+              records.write(game.getRecord());
+            }
+          }
+          catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      });
+    }
+    progress.shutdownNow();
+    if (book != null) {
+      book.close();
+    }
+    report(tournament);
+    if (sprt != null) {
+      System.out.printf("SPRT: %s (LLR %.2f, bounds %.2f %.2f)%n", tournament.getDecision(), tournament.getLlr(),
+          sprt.getLowerBound(), sprt.getUpperBound());
+    }
+  }
+
+  /**
+   * @brief Writes the line of a game in the results file.
+   */
+
+  private static String line(TournamentGame game) {
+    GameRecord record = game.getRecord();
+    StringBuilder sb = new StringBuilder(256);
+    sb.append(game.getIndex()).append('\t').append(game.getWhite().getName()).append('\t').append(game.getBlack().getName())
+        .append('\t').append(record.getResult()).append('\t').append(game.getTermination())
+        .append('\t').append(record.getPlies()).append('\t').append(record.getStartFen()).append('\t');
+    int[] moves = record.getMoves();
+    for (int i = 0; i < moves.length; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(Move.toString(moves[i]));
+    }
+    return sb.append('\n').toString();
+  }
+
+  private static void report(Tournament tournament) {
+    System.out.printf("%d games: +%d =%d -%d, Elo %+.1f +/- %.1f, %d time forfeits, %.1f plies/game, %.2f games/s%n",
+        tournament.getGames(), tournament.getWins(), tournament.getDraws(), tournament.getLosses(),
+        tournament.getElo(), tournament.getEloMargin(), tournament.getTimeForfeits(),
+        (double)tournament.getPlies() / Math.max(tournament.getGames(), 1), tournament.getGamesPerSecond());
+  }
+}
@@ -69,7 +69,11 @@ public class UI {
     printCapturePieces(captured);
     System.out.println();
     System.out.println("Turn: " + chessMatch.getTurn());
-    if (!chessMatch.getCheckMate()) {
+    if (chessMatch.getDraw()) {
+      System.out.println("DRAW!!");
+      System.out.println("Reason: " + chessMatch.getDrawReason());
+    }
+    else if (!chessMatch.getCheckMate()) {
       System.out.println("Waiting player: " + chessMatch.getCurrentPlayer());
       if (chessMatch.getCheck()) {
         System.out.println("CHECK!!");
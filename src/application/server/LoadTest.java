@@ -0,0 +1,70 @@
+/**
+ * @file LoadTest.java
+ * @brief This file contains the load test of the match service.
+ */
+
+package application.server;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * @brief Measures the move latency of the match service as the number of concurrent matches grows.
+ *
+ * For each match count, one session per match plays the same short opening on its own match,
+ * then the latency of every move command is sorted and the p50, p99 and maximum are printed.
+ * Usage: LoadTest [match counts...].
+ */
+
+public class LoadTest {
+
+  private static final String[][] OPENING = {{"e2", "e4"}, {"e7", "e5"}, {"g1", "f3"}, {"b8", "c6"}, {"f1", "b5"}, {"a7", "a6"}, {"b5", "a4"}, {"g8", "f6"}};
+
+  /**
+   * @brief Runs the load test.
+   */
+
+  public static void main(String[] args) throws InterruptedException {
+    int[] counts = {10, 100, 1000, 10000};
+    if (args.length > 0) {
+      counts = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+    }
+    run(100, false); // Warm-up
+    System.out.printf("%8s %12s %12s %12s %12s%n", "matches", "moves/s", "p50 us", "p99 us", "max us");
+    for (int count : counts) {
+      run(count, true);
+    }
+  }
+
+  private static void run(int matches, boolean report) throws InterruptedException {
+    MatchService service = new MatchService();
+    long[] latencies = new long[matches * OPENING.length];
+    CountDownLatch done = new CountDownLatch(matches);
+    ExecutorService sessions = MatchServer.newSessionExecutor();
+    long start = System.nanoTime();
+    for (int m = 0; m < matches; m++) {
+      int session = m;
+      sessions.execute(() -> {
+        long id = service.createMatch();
+        for (int i = 0; i < OPENING.length; i++) {
+          long t = System.nanoTime();
+          service.move(id, OPENING[i][0], OPENING[i][1], null);
+          latencies[session * OPENING.length + i] = System.nanoTime() - t;
+        }
+        service.closeMatch(id);
+        done.countDown();
+      });
+    }
+    done.await();
+    long elapsed = System.nanoTime() - start;
+    sessions.shutdown();
+
+    if (!report) {
+      return;
+    }
+    Arrays.sort(latencies);
+    System.out.printf("%8d %12.0f %12.1f %12.1f %12.1f%n", matches, latencies.length / (elapsed / 1e9),
+        latencies[latencies.length / 2] / 1e3, latencies[(int)(latencies.length * 0.99)] / 1e3, latencies[latencies.length - 1] / 1e3);
+  }
+}
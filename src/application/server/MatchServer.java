@@ -0,0 +1,198 @@
+/**
+ * @file MatchServer.java
+ * @brief This file contains the match server, a line protocol over loopback sockets in front of the match service.
+ */
+
+package application.server;
+
+import boardgame.BoardException;
+import chess.metrics.ChessMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @brief Serves a MatchService to clients over a loopback socket, one thread per session.
+ *
+ * Each line sent by a client is one command, answered by one line starting with "ok" or "error":
+ *   new [fen]                       ok <id>
+ *   move <id> <from> <to> [B|N|R|Q] ok <state>
+ *   moves <id> <from>               ok <square> ...
+ *   resign <id>                     ok <state>
+ *   state <id>                      ok <state>
+ *   close <id>                      ok
+ *   quit                            (closes the session)
+ * Sessions run on virtual threads when the JVM provides them, and on platform threads
+ * otherwise. The same protocol is available in process through respond().
+ * The ChessMetrics MXBean is registered at startup; metrics are recorded once it is enabled
+ * over JMX, or from the start with -Dchess.metrics=true.
+ * Usage: MatchServer [port].
+ */
+
+public class MatchServer implements AutoCloseable {
+
+  private final MatchService service;
+  private final ServerSocket serverSocket;
+  private final ExecutorService sessions;
+
+  /**
+   * @brief Opens the server socket on the loopback interface.
+   *
+   * @param service The matches to serve.
+   * @param port The port to listen on, or 0 for any free port.
+   */
+
+  public MatchServer(MatchService service, int port) throws IOException {
+    this.service = service;
+    this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    this.sessions = newSessionExecutor();
+  }
+
+  /**
+   * @brief Starts the server and accepts clients until the process ends.
+   */
+
+  public static void main(String[] args) throws Exception {
+    int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7878;
+    ChessMetrics.register();
+    try (MatchServer server = new MatchServer(new MatchService(), port)) {
+      System.out.println("Match server listening on " + server.getPort());
+      server.serve();
+    }
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * @brief Accepts clients until the server is closed, handing every connection to its own thread.
+   */
+
+  public void serve() throws IOException {
+    while (!serverSocket.isClosed()) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      }
+      catch (IOException e) {
+        if (serverSocket.isClosed()) {
+          return;
+        }
+        throw e;
+      }
+      sessions.execute(() -> session(socket));
+    }
+  }
+
+  /**
+   * @brief Stops accepting clients and ends the open sessions.
+   */
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    sessions.shutdownNow();
+  }
+
+  /**
+   * @brief Runs one command of the protocol.
+   *
+   * @param service The matches the command applies to.
+   * @param line The command line.
+   * @return The response line.
+   */
+
+  public static String respond(MatchService service, String line) {
+    String[] words = line.trim().split("\\s+", 3);
+    try {
+      switch (words[0]) {
+        case "new":
+          return "ok " + ((words.length > 1) ? service.createMatch(line.trim().substring(4).trim()) : service.createMatch());
+        case "move": {
+          String[] args = line.trim().split("\\s+");
+          if (args.length < 4) {
+            return "error usage: move <id> <from> <to> [B|N|R|Q]";
+          }
+          return "ok " + service.move(Long.parseLong(args[1]), args[2], args[3], (args.length > 4) ? args[4] : null);
+        }
+        case "moves": {
+          String[] args = line.trim().split("\\s+");
+          if (args.length < 3) {
+            return "error usage: moves <id> <from>";
+          }
+          return ("ok " + String.join(" ", service.possibleMoves(Long.parseLong(args[1]), args[2]))).trim();
+        }
+        case "resign":
+          return "ok " + service.resign(id(words));
+        case "state":
+          return "ok " + service.state(id(words));
+        case "close":
+          return service.closeMatch(id(words)) ? "ok" : "error There is no match " + words[1];
+        default:
+          return "error unknown command '" + words[0] + "'";
+      }
+    }
+    catch (BoardException | IllegalStateException e) {
+      return "error " + e.getMessage();
+    }
+    catch (NumberFormatException e) {
+      return "error invalid match id";
+    }
+  }
+
+  /**
+   * @brief Reads the commands of one client until it quits or disconnects.
+   */
+
+  private void session(Socket socket) {
+    try (Socket s = socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+         PrintWriter out = new PrintWriter(s.getOutputStream(), true, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null && !line.trim().equals("quit")) {
+        if (!line.isBlank()) {
+          out.println(respond(service, line));
+        }
+      }
+    }
+    catch (IOException e) {
+      // The client went away; its matches stay hosted
+    }
+  }
+
+  private static long id(String[] words) {
+    if (words.length < 2) {
+      throw new NumberFormatException();
+    }
+    return Long.parseLong(words[1]);
+  }
+
+  /**
+   * @brief Creates an executor with one virtual thread per task, or a cached pool of platform
+   * threads on JVMs without virtual threads.
+   *
+   * The virtual-thread factory is looked up reflectively so the code still compiles and runs on JDK 17.
+   */
+
+  static ExecutorService newSessionExecutor() {
+    try {
+      return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+    catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "match-session");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/**
+ * @file MatchService.java
+ * @brief This file contains the match service, which hosts many concurrent chess matches.
+ */
+
+package application.server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * @brief Hosts chess matches by ID and runs the commands of each match one at a time.
+ *
+ * ChessMatch is not thread-safe, so every match has its own lock and the commands on a match
+ * are serialized, while commands on different matches run in parallel. A lock is only held
+ * while the command runs on the board, never while a client is read from or written to, so
+ * a slow client cannot hold up any other match. The locks are ReentrantLocks rather than
+ * synchronized blocks, which would pin virtual threads to their carrier while they wait.
+ */
+
+public class MatchService {
+
+  /**
+   * @brief A match and the state the service keeps around it.
+   */
+
+  private static final class HostedMatch {
+    final long id;
+    final ChessMatch chessMatch;
+    final ReentrantLock lock = new ReentrantLock();
+    Color resigned; ///< The color that resigned, or null.
+
+    HostedMatch(long id, ChessMatch chessMatch) {
+      this.id = id;
+      this.chessMatch = chessMatch;
+    }
+
+    boolean isOver() {
+      return resigned != null || chessMatch.getCheckMate() || chessMatch.getDraw();
+    }
+
+    MatchState state(ChessPiece captured) {
+      Color winner = null;
+      if (resigned != null) {
+        winner = (resigned == Color.WHITE) ? Color.BLACK : Color.WHITE;
+      }
+      else if (chessMatch.getCheckMate()) {
+        winner = chessMatch.getCurrentPlayer();
+      }
+      return new MatchState(id, chessMatch.getTurn(), chessMatch.getCurrentPlayer(), chessMatch.getCheck(),
+          chessMatch.getCheckMate(), chessMatch.getDrawReason(), winner, captured == null ? null : captured.toString());
+    }
+  }
+
+  private final ConcurrentHashMap<Long, HostedMatch> matches = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  /**
+   * @brief Starts a match from the initial position.
+   *
+   * @return The ID of the new match.
+   */
+
+  public long createMatch() {
+    return register(new ChessMatch());
+  }
+
+  /**
+   * @brief Starts a match from a FEN position.
+   *
+   * @param fen The starting position.
+   * @return The ID of the new match.
+   * @throws ChessException if the position is not valid.
+   */
+
+  public long createMatch(String fen) {
+    return register(ChessMatch.fromFen(fen));
+  }
+
+  /**
+   * @brief Plays a move.
+   *
+   * @param id The ID of the match.
+   * @param source The square of the piece to move, such as "e2".
+   * @param target The square to move to.
+   * @param promotion The piece for a promotion (B, N, R or Q), or null for a queen.
+   * @return The state of the match after the move.
+   * @throws ChessException if the match does not exist, is over, the promotion piece is unknown, or the move is not legal.
+   */
+
+  public MatchState move(long id, String source, String target, String promotion) {
+    ChessPosition from = parsePosition(source);
+    ChessPosition to = parsePosition(target);
+    String piece = parsePromotion(promotion);
+    return execute(id, match -> {
+      if (match.isOver()) {
+        throw new ChessException("The match is over");
+      }
+      ChessPiece captured = match.chessMatch.performChessMove(from, to);
+      if (match.chessMatch.getPromoted() != null && piece != null) {
+        match.chessMatch.replacePromotedPiece(piece);
+      }
+      return match.state(captured);
+    });
+  }
+
+  /**
+   * @brief Lists the legal targets of a piece.
+   *
+   * @param id The ID of the match.
+   * @param source The square of the piece, such as "g1".
+   * @return The target squares, from a8 to h1.
+   * @throws ChessException if the match does not exist or the square holds no piece of the side to move.
+   */
+
+  public List<String> possibleMoves(long id, String source) {
+    ChessPosition from = parsePosition(source);
+    return execute(id, match -> {
+      boolean[][] targets = match.chessMatch.possibleMoves(from);
+      List<String> squares = new ArrayList<>();
+      for (int row = 0; row < targets.length; row++) {
+        for (int column = 0; column < targets[row].length; column++) {
+          if (targets[row][column]) {
+            squares.add("" + (char)('a' + column) + (8 - row));
+          }
+        }
+      }
+      return squares;
+    });
+  }
+
+  /**
+   * @brief Resigns the match on behalf of the side to move.
+   *
+   * @param id The ID of the match.
+   * @return The state of the match, with the opponent as winner.
+   * @throws ChessException if the match does not exist or is already over.
+   */
+
+  public MatchState resign(long id) {
+    return execute(id, match -> {
+      if (match.isOver()) {
+        throw new ChessException("The match is over");
+      }
+      match.resigned = match.chessMatch.getCurrentPlayer();
+      return match.state(null);
+    });
+  }
+
+  /**
+   * @brief Gets the state of a match.
+   *
+   * @param id The ID of the match.
+   * @return The current state.
+   * @throws ChessException if the match does not exist.
+   */
+
+  public MatchState state(long id) {
+    return execute(id, match -> match.state(null));
+  }
+
+  /**
+   * @brief Removes a match from the service.
+   *
+   * @param id The ID of the match.
+   * @return True if the match existed.
+   */
+
+  public boolean closeMatch(long id) {
+    return matches.remove(id) != null;
+  }
+
+  /**
+   * @brief Gets the number of hosted matches.
+   */
+
+  public int size() {
+    return matches.size();
+  }
+
+  private long register(ChessMatch chessMatch) {
+    long id = nextId.getAndIncrement();
+    matches.put(id, new HostedMatch(id, chessMatch));
+    return id;
+  }
+
+  /**
+   * @brief Runs a command on a match while holding the lock of that match only.
+   */
+
+  private <T> T execute(long id, Function<HostedMatch, T> command) {
+    HostedMatch match = matches.get(id);
+    if (match == null) {
+      throw new ChessException("There is no match " + id);
+    }
+    match.lock.lock();
+    try {
+      return command.apply(match);
+    }
+    finally {
+      match.lock.unlock();
+    }
+  }
+
+  private static ChessPosition parsePosition(String s) {
+    if (s == null || s.length() != 2 || s.charAt(1) < '1' || s.charAt(1) > '8') {
+      throw new ChessException("Invalid square '" + s + "'. Valid values are from a1 to h8");
+    }
+    return new ChessPosition(s.charAt(0), s.charAt(1) - '0');
+  }
+
+  private static String parsePromotion(String s) {
+    if (s == null) {
+      return null;
+    }
+    String piece = s.toUpperCase();
+    if (!piece.equals("B") && !piece.equals("N") && !piece.equals("R") && !piece.equals("Q")) {
+      throw new ChessException("Invalid promotion '" + s + "'. Valid values are B, N, R and Q");
+    }
+    return piece;
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * @file MatchState.java
+ * @brief This file contains the state of a hosted match, as returned by the match service.
+ */
+
+package application.server;
+
+import chess.Color;
+import chess.DrawReason;
+
+/**
+ * @brief An immutable summary of a hosted match after a command.
+ */
+
+public final class MatchState {
+
+  private final long id;
+  private final int turn;
+  private final Color currentPlayer;
+  private final boolean check;
+  private final boolean checkMate;
+  private final DrawReason drawReason;
+  private final Color winner;
+  private final String captured;
+
+  MatchState(long id, int turn, Color currentPlayer, boolean check, boolean checkMate, DrawReason drawReason, Color winner, String captured) {
+    this.id = id;
+    this.turn = turn;
+    this.currentPlayer = currentPlayer;
+    this.check = check;
+    this.checkMate = checkMate;
+    this.drawReason = drawReason;
+    this.winner = winner;
+    this.captured = captured;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public int getTurn() {
+    return turn;
+  }
+
+  public Color getCurrentPlayer() {
+    return currentPlayer;
+  }
+
+  public boolean getCheck() {
+    return check;
+  }
+
+  public boolean getCheckMate() {
+    return checkMate;
+  }
+
+  /**
+   * @brief Gets the rule that drew the match.
+   *
+   * @return The reason of the draw, or null if the match is not drawn.
+   */
+
+  public DrawReason getDrawReason() {
+    return drawReason;
+  }
+
+  /**
+   * @brief Gets the winner of the match.
+   *
+   * @return The color that mated or whose opponent resigned, or null while the match goes on.
+   */
+
+  public Color getWinner() {
+    return winner;
+  }
+
+  /**
+   * @brief Gets the piece captured by the last move.
+   *
+   * @return The letter of the captured piece, or null if the command captured nothing.
+   */
+
+  public String getCaptured() {
+    return captured;
+  }
+
+  /**
+   * @brief Generates the text form used by the match server.
+   *
+   * @return A line such as "id 3 turn 5 player BLACK check false checkmate false draw - winner - captured P".
+   */
+
+  @Override
+  public String toString() {
+    return "id " + id + " turn " + turn + " player " + currentPlayer + " check " + check + " checkmate " + checkMate
+        + " draw " + (drawReason == null ? "-" : drawReason)
+        + " winner " + (winner == null ? "-" : winner) + " captured " + (captured == null ? "-" : captured);
+  }
+}
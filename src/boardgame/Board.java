@@ -13,7 +13,8 @@ public class Board {
   
   private int rows; ///< The number of rows on the board.
   private int columns; ///< The number of columns on the board.
-  private Piece[][] pieces; ///< A 2D array representing the pieces on the board.
+  private Piece[] pieces; ///< The pieces on the board, stored row by row in a single flat array.
+  private Position[] positions; ///< One shared Position instance per square, handed to the pieces placed on it.
 
   /**
    * @brief Constructs a Board object with the specified number of rows and columns.
@@ -29,7 +30,13 @@ public class Board {
     }
     this.rows = rows;
     this.columns = columns;
-    pieces = new Piece[rows][columns];
+    pieces = new Piece[rows * columns];
+    positions = new Position[rows * columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        positions[i * columns + j] = new Position(i, j);
+      }
+    }
   }
 
     /**
@@ -64,7 +71,7 @@ public class Board {
       throw new BoardException("Position not on the board");
     }
 
-    return pieces[row][column];
+    return pieces[row * columns + column];
   }
 
   public Piece piece(Position position) {
@@ -72,7 +79,7 @@ public class Board {
       throw new BoardException("Position not on the board");
     }
 
-    return pieces[position.getRow()][position.getColumn()];
+    return pieces[index(position)];
   }
 
   //muda uma peça de posição
@@ -81,8 +88,7 @@ public class Board {
       throw new BoardException("There is already a piece on position " + position);
     }
 
-    pieces[position.getRow()][position.getColumn()] = piece;
-    piece.position = position;
+    place(piece, index(position));
   }
 
   //Remove a peça
@@ -90,12 +96,61 @@ public class Board {
     if (!positionExists(position)) {
       throw new BoardException("Position not on the board");
     }
-    if (piece(position) == null) {
+    return remove(index(position));
+  }
+
+  /**
+   * @brief Converts a position into its index in the flat piece array.
+   *
+   * @param position The position to convert.
+   * @return The index of the position, row by row.
+   */
+
+  protected int index(Position position) {
+    return position.getRow() * columns + position.getColumn();
+  }
+
+  /**
+   * @brief Gets the piece stored at the given index, without bounds checks.
+   *
+   * @param index The index of the square, as returned by index(Position).
+   * @return The piece on that square, or null if it is empty.
+   */
+
+  protected Piece pieceAt(int index) {
+    return pieces[index];
+  }
+
+  /**
+   * @brief Stores a piece at the given index and updates its position.
+   *
+   * The piece receives the board's own Position instance for the square, so moving
+   * pieces around does not allocate and callers may reuse their Position objects.
+   * Subclasses that keep additional indexes of the pieces override this method.
+   *
+   * @param piece The piece to be placed.
+   * @param index The index of the square, as returned by index(Position).
+   */
+
+  protected void place(Piece piece, int index) {
+    pieces[index] = piece;
+    piece.position = positions[index];
+  }
+
+  /**
+   * @brief Removes the piece stored at the given index.
+   *
+   * @param index The index of the square, as returned by index(Position).
+   * @return The removed piece, or null if the square was empty.
+   */
+
+  protected Piece remove(int index) {
+    Piece aux = pieces[index];
+    if (aux == null) {
       return null;
     }
-    Piece aux = piece(position);
     aux.position = null;
-    pieces[position.getRow()][position.getColumn()] = null;
+    pieces[index] = null;
 
     return aux;
   }
@@ -0,0 +1,266 @@
+package chess;
+
+/**
+ * Attack lookup tables, built once when the class is loaded.
+ *
+ * Knights, kings and pawns use one precomputed mask per square. Rooks and bishops use
+ * magic bitboards: the blockers relevant to a square are multiplied by a magic number,
+ * whose top bits index a table holding the attack set for that exact occupancy. The
+ * magic numbers were found offline by a random search over sparse candidates.
+ * Squares follow the ChessBoard numbering (a8 = 0, h1 = 63).
+ */
+public final class Attacks {
+
+  private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+  private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+  private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+  private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+  private static final long[] KNIGHT = new long[64];
+  private static final long[] KING = new long[64];
+  private static final long[][] PAWN = new long[Color.values().length][64];
+
+  private static final long[] ROOK_MASK = new long[64];
+  private static final long[] ROOK_MAGIC = {
+    0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+    0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+    0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+    0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+    0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+    0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+    0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+    0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+    0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+    0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+    0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+    0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+    0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+    0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+    0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+    0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+  };
+  private static final int[] ROOK_SHIFT = new int[64];
+  private static final long[][] ROOK_TABLE = new long[64][];
+
+  private static final long[][] BETWEEN = new long[64][64];
+  private static final long[][] LINE = new long[64][64];
+
+  private static final long[] BISHOP_MASK = new long[64];
+  private static final long[] BISHOP_MAGIC = {
+    0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+    0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+    0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+    0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+    0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+    0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+    0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+    0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+    0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+    0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+    0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+    0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+    0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+    0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+    0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+    0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L
+  };
+  private static final int[] BISHOP_SHIFT = new int[64];
+  private static final long[][] BISHOP_TABLE = new long[64][];
+
+  static {
+    for (int square = 0; square < 64; square++) {
+      KNIGHT[square] = stepAttacks(square, KNIGHT_STEPS);
+      KING[square] = stepAttacks(square, KING_STEPS);
+      PAWN[Color.WHITE.ordinal()][square] = stepAttacks(square, new int[][] {{-1, -1}, {-1, 1}});
+      PAWN[Color.BLACK.ordinal()][square] = stepAttacks(square, new int[][] {{1, -1}, {1, 1}});
+
+      ROOK_MASK[square] = relevantMask(square, ROOK_DIRECTIONS);
+      ROOK_SHIFT[square] = 64 - Long.bitCount(ROOK_MASK[square]);
+      ROOK_TABLE[square] = new long[1 << Long.bitCount(ROOK_MASK[square])];
+      fillTable(square, ROOK_MASK[square], ROOK_MAGIC[square], ROOK_SHIFT[square], ROOK_TABLE[square], ROOK_DIRECTIONS);
+
+      BISHOP_MASK[square] = relevantMask(square, BISHOP_DIRECTIONS);
+      BISHOP_SHIFT[square] = 64 - Long.bitCount(BISHOP_MASK[square]);
+      BISHOP_TABLE[square] = new long[1 << Long.bitCount(BISHOP_MASK[square])];
+      fillTable(square, BISHOP_MASK[square], BISHOP_MAGIC[square], BISHOP_SHIFT[square], BISHOP_TABLE[square], BISHOP_DIRECTIONS);
+
+      fillLines(square, ROOK_DIRECTIONS);
+      fillLines(square, BISHOP_DIRECTIONS);
+    }
+  }
+
+  private Attacks() {
+  }
+
+  /**
+   * Gets the squares attacked by a knight.
+   * @param square The square of the knight.
+   * @return The attack mask.
+   */
+  public static long knight(int square) {
+    return KNIGHT[square];
+  }
+
+  /**
+   * Gets the squares attacked by a king, castling excluded.
+   * @param square The square of the king.
+   * @return The attack mask.
+   */
+  public static long king(int square) {
+    return KING[square];
+  }
+
+  /**
+   * Gets the squares a pawn attacks diagonally.
+   * @param color The color of the pawn.
+   * @param square The square of the pawn.
+   * @return The attack mask.
+   */
+  public static long pawn(Color color, int square) {
+    return PAWN[color.ordinal()][square];
+  }
+
+  /**
+   * Gets the squares attacked by a rook, up to and including the first blocker on each ray.
+   * @param square The square of the rook.
+   * @param occupancy The occupied squares of the board.
+   * @return The attack mask.
+   */
+  public static long rook(int square, long occupancy) {
+    return ROOK_TABLE[square][(int)(((occupancy & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+  }
+
+  /**
+   * Gets the squares attacked by a bishop, up to and including the first blocker on each ray.
+   * @param square The square of the bishop.
+   * @param occupancy The occupied squares of the board.
+   * @return The attack mask.
+   */
+  public static long bishop(int square, long occupancy) {
+    return BISHOP_TABLE[square][(int)(((occupancy & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+  }
+
+  /**
+   * Gets the squares attacked by a queen, up to and including the first blocker on each ray.
+   * @param square The square of the queen.
+   * @param occupancy The occupied squares of the board.
+   * @return The attack mask.
+   */
+  public static long queen(int square, long occupancy) {
+    return rook(square, occupancy) | bishop(square, occupancy);
+  }
+
+  /**
+   * Gets the squares strictly between two squares on the same rank, file or diagonal.
+   * @param from The first square.
+   * @param to The second square.
+   * @return The squares in between, or 0 if the squares are not aligned.
+   */
+  public static long between(int from, int to) {
+    return BETWEEN[from][to];
+  }
+
+  /**
+   * Gets the whole rank, file or diagonal running through two squares, edge to edge.
+   * @param from The first square.
+   * @param to The second square.
+   * @return The squares of the line, both given squares included, or 0 if the squares are not aligned.
+   */
+  public static long line(int from, int to) {
+    return LINE[from][to];
+  }
+
+  /**
+   * Builds the mask of the squares reached by single steps from a square.
+   */
+  private static long stepAttacks(int square, int[][] steps) {
+    long mask = 0L;
+    for (int[] step : steps) {
+      int row = square / 8 + step[0];
+      int column = square % 8 + step[1];
+      if (row >= 0 && row < 8 && column >= 0 && column < 8) {
+        mask |= 1L << ChessBoard.square(row, column);
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Walks every ray from a square one step at a time, stopping at the first occupied square.
+   * Only used to fill the tables.
+   */
+  private static long slidingAttacks(int square, long occupancy, int[][] directions) {
+    long mask = 0L;
+    for (int[] direction : directions) {
+      int row = square / 8 + direction[0];
+      int column = square % 8 + direction[1];
+      while (row >= 0 && row < 8 && column >= 0 && column < 8) {
+        long bit = 1L << ChessBoard.square(row, column);
+        mask |= bit;
+        if ((occupancy & bit) != 0) {
+          break;
+        }
+        row += direction[0];
+        column += direction[1];
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Builds the mask of the squares whose occupancy changes the attacks from a square.
+   * The last square of each ray never blocks anything behind it, so it is left out.
+   */
+  private static long relevantMask(int square, int[][] directions) {
+    long mask = 0L;
+    for (int[] direction : directions) {
+      int row = square / 8 + direction[0];
+      int column = square % 8 + direction[1];
+      while (row + direction[0] >= 0 && row + direction[0] < 8 && column + direction[1] >= 0 && column + direction[1] < 8) {
+        mask |= 1L << ChessBoard.square(row, column);
+        row += direction[0];
+        column += direction[1];
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Fills the between and line masks from a square towards every square aligned with it.
+   */
+  private static void fillLines(int square, int[][] directions) {
+    for (int[] direction : directions) {
+      long line = (1L << square) | slidingAttacks(square, 0L, new int[][] {direction}) | slidingAttacks(square, 0L, new int[][] {{-direction[0], -direction[1]}});
+      long between = 0L;
+      int row = square / 8 + direction[0];
+      int column = square % 8 + direction[1];
+      while (row >= 0 && row < 8 && column >= 0 && column < 8) {
+        int target = ChessBoard.square(row, column);
+        BETWEEN[square][target] = between;
+        LINE[square][target] = line;
+        between |= 1L << target;
+        row += direction[0];
+        column += direction[1];
+      }
+    }
+  }
+
+  /**
+   * Fills the table of a square with the attacks for every blocker subset of its mask.
+   * @throws IllegalStateException if the magic number maps two different attack sets to the same slot.
+   */
+  private static void fillTable(int square, long mask, long magic, int shift, long[] table, int[][] directions) {
+    boolean[] used = new boolean[table.length];
+    long occupancy = 0L;
+    do {
+      int index = (int)((occupancy * magic) >>> shift);
+      long attacks = slidingAttacks(square, occupancy, directions);
+      if (used[index] && table[index] != attacks) {
+        throw new IllegalStateException("Invalid magic number for square " + square);
+      }
+      used[index] = true;
+      table[index] = attacks;
+      occupancy = (occupancy - mask) & mask; // Carry-rippler: next subset of the mask
+    } while (occupancy != 0);
+  }
+}
@@ -0,0 +1,207 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.BoardException;
+import boardgame.Piece;
+import boardgame.Position;
+
+/**
+ * An 8x8 board that, besides the pieces themselves, keeps one 64-bit bitboard per
+ * piece type and color plus occupancy masks for each color and for the whole board.
+ *
+ * Squares are numbered row by row from the top-left corner, so a8 is square 0,
+ * h8 is square 7 and h1 is square 63. Bit n of every bitboard refers to square n.
+ */
+public class ChessBoard extends Board {
+
+  private final long[] bitboards = new long[Color.values().length * PieceType.values().length]; // One mask per color and piece type
+  private final long[] colorOccupancy = new long[Color.values().length]; // Squares taken by each color
+  private long occupancy; // Squares taken by any piece
+  private long key; // Zobrist hash of the pieces and their squares
+
+  /**
+   * Constructor for a ChessBoard.
+   */
+  public ChessBoard() {
+    super(8, 8);
+  }
+
+  /**
+   * Converts a row and a column into a square index.
+   * @param row The row of the square.
+   * @param column The column of the square.
+   * @return The square index, from 0 (a8) to 63 (h1).
+   */
+  public static int square(int row, int column) {
+    return row * 8 + column;
+  }
+
+  /**
+   * Converts a position into a square index.
+   * @param position The position to convert.
+   * @return The square index, from 0 (a8) to 63 (h1).
+   */
+  public static int square(Position position) {
+    return square(position.getRow(), position.getColumn());
+  }
+
+  /**
+   * Gets the bitboard of the pieces of a given color and type.
+   * @param color The color of the pieces.
+   * @param type The type of the pieces.
+   * @return A mask with one bit set for every square holding such a piece.
+   */
+  public long pieces(Color color, PieceType type) {
+    return bitboards[color.ordinal() * 6 + type.ordinal()];
+  }
+
+  /**
+   * Gets the bitboard of all pieces of a given color.
+   * @param color The color of the pieces.
+   * @return A mask with one bit set for every square holding a piece of that color.
+   */
+  public long pieces(Color color) {
+    return colorOccupancy[color.ordinal()];
+  }
+
+  /**
+   * Gets the bitboard of all pieces on the board.
+   * @return A mask with one bit set for every occupied square.
+   */
+  public long occupancy() {
+    return occupancy;
+  }
+
+  /**
+   * Gets the Zobrist hash of the pieces on the board, updated on every placement and removal.
+   * Side to move, castling rights and "en passant" are not part of it; see ChessMatch.getZobristKey().
+   * @return The hash of the piece placement.
+   */
+  public long getKey() {
+    return key;
+  }
+
+  /**
+   * Gets the piece on a square.
+   * @param square The square index, from 0 (a8) to 63 (h1).
+   * @return The piece on the square, or null if it is empty.
+   */
+  public ChessPiece piece(int square) {
+    return (ChessPiece)pieceAt(square);
+  }
+
+  /**
+   * Places a piece on a square.
+   * @param piece The piece to be placed.
+   * @param square The square index, from 0 (a8) to 63 (h1).
+   * @throws BoardException If the square is already occupied.
+   */
+  public void placePiece(Piece piece, int square) {
+    if ((occupancy & (1L << square)) != 0) {
+      throw new BoardException("There is already a piece on square " + square);
+    }
+    place(piece, square);
+  }
+
+  /**
+   * Removes the piece on a square.
+   * @param square The square index, from 0 (a8) to 63 (h1).
+   * @return The removed piece, or null if the square was empty.
+   */
+  public ChessPiece removePiece(int square) {
+    return (ChessPiece)remove(square);
+  }
+
+  /**
+   * Checks if a square is attacked by any piece of a given color.
+   * Works outward from the square: it probes the knight, king and pawn squares that could
+   * reach it and casts rook and bishop rays from it, instead of generating the attacker's moves.
+   * @param square The square to test.
+   * @param attacker The color of the attacking pieces.
+   * @return True if the square is attacked, false otherwise.
+   */
+  public boolean isSquareAttacked(int square, Color attacker) {
+    return isSquareAttacked(square, attacker, occupancy);
+  }
+
+  /**
+   * Checks if a square is attacked by any piece of a given color, using a custom occupancy for the sliding pieces.
+   * @param square The square to test.
+   * @param attacker The color of the attacking pieces.
+   * @param occupancy The occupied squares that block rook, bishop and queen rays.
+   * @return True if the square is attacked, false otherwise.
+   */
+  public boolean isSquareAttacked(int square, Color attacker, long occupancy) {
+    int base = attacker.ordinal() * 6;
+    Color defender = (attacker == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    if ((Attacks.pawn(defender, square) & bitboards[base + PieceType.PAWN.ordinal()]) != 0) {
+      return true;
+    }
+    if ((Attacks.knight(square) & bitboards[base + PieceType.KNIGHT.ordinal()]) != 0) {
+      return true;
+    }
+    if ((Attacks.king(square) & bitboards[base + PieceType.KING.ordinal()]) != 0) {
+      return true;
+    }
+    long queens = bitboards[base + PieceType.QUEEN.ordinal()];
+    if ((Attacks.bishop(square, occupancy) & (bitboards[base + PieceType.BISHOP.ordinal()] | queens)) != 0) {
+      return true;
+    }
+    return (Attacks.rook(square, occupancy) & (bitboards[base + PieceType.ROOK.ordinal()] | queens)) != 0;
+  }
+
+  /**
+   * Gets every piece of a given color attacking a square.
+   * @param square The square to test.
+   * @param attacker The color of the attacking pieces.
+   * @param occupancy The occupied squares that block rook, bishop and queen rays.
+   * @return A bitboard with the squares of the attacking pieces.
+   */
+  public long attackersTo(int square, Color attacker, long occupancy) {
+    int base = attacker.ordinal() * 6;
+    Color defender = (attacker == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    long queens = bitboards[base + PieceType.QUEEN.ordinal()];
+    return (Attacks.pawn(defender, square) & bitboards[base + PieceType.PAWN.ordinal()])
+        | (Attacks.knight(square) & bitboards[base + PieceType.KNIGHT.ordinal()])
+        | (Attacks.king(square) & bitboards[base + PieceType.KING.ordinal()])
+        | (Attacks.bishop(square, occupancy) & (bitboards[base + PieceType.BISHOP.ordinal()] | queens))
+        | (Attacks.rook(square, occupancy) & (bitboards[base + PieceType.ROOK.ordinal()] | queens));
+  }
+
+  /**
+   * Checks if there is a piece on a position, using the occupancy mask.
+   * @param position The position to check.
+   * @return True if the position is occupied, false otherwise.
+   */
+  @Override
+  public boolean thereIsAPiece(Position position) {
+    if (!positionExists(position)) {
+      throw new BoardException("Position not on the board");
+    }
+    return (occupancy & (1L << square(position))) != 0;
+  }
+
+  @Override
+  protected void place(Piece piece, int index) {
+    super.place(piece, index);
+    ChessPiece p = (ChessPiece)piece;
+    long bit = 1L << index;
+    bitboards[p.getColor().ordinal() * 6 + p.getType().ordinal()] |= bit;
+    colorOccupancy[p.getColor().ordinal()] |= bit;
+    occupancy |= bit;
+    key ^= Zobrist.piece(p.getColor(), p.getType(), index);
+  }
+
+  @Override
+  protected Piece remove(int index) {
+    ChessPiece p = (ChessPiece)super.remove(index);
+    if (p != null) {
+      long bit = ~(1L << index);
+      bitboards[p.getColor().ordinal() * 6 + p.getType().ordinal()] &= bit;
+      colorOccupancy[p.getColor().ordinal()] &= bit;
+      occupancy &= bit;
+      key ^= Zobrist.piece(p.getColor(), p.getType(), index);
+    }
+    return p;
+  }
+}
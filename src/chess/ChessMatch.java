@@ -6,10 +6,9 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import boardgame.Board;
 import boardgame.Position;
 import boardgame.Piece;
 import chess.chessPieces.Bishop;
@@ -18,6 +17,12 @@ import chess.chessPieces.Knight;
 import chess.chessPieces.Pawn;
 import chess.chessPieces.Queen;
 import chess.chessPieces.Rook;
+import chess.events.CheckMateTestEvent;
+import chess.events.PromotionEvent;
+import chess.events.SourceValidationEvent;
+import chess.events.TargetValidationEvent;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Rejection;
 
 /**
  * @brief Represents a game of chess.
@@ -33,23 +38,174 @@ public class ChessMatch {
   
   private int turn;
   private Color currentPlayer;
-  private Board board;
+  private ChessBoard board;
   private boolean check;
   private boolean checkMate;
+  private DrawReason drawReason; // Why the match is drawn, or null
   private ChessPiece enPassantVulnerable;
   private ChessPiece promoted;
 
-  private List<Piece> piecesOnTheBoard = new ArrayList<>();
+  private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L; // a8, c8... are light squares
+  private int halfmoveClock; // Half moves since the last capture or pawn move
+
+  private List<Piece> whitePieces = new ArrayList<>(16); // White pieces on the board
+  private List<Piece> blackPieces = new ArrayList<>(16); // Black pieces on the board
+  private ChessPiece whiteKing; // Kept with the piece lists, so the king square is one field away
+  private ChessPiece blackKing;
+
+  private final int[] moveBuffer = new int[256]; // Scratch buffer for the legal move generator
+
+  // Legal moves of the side to move, generated at most once per position for the checkmate and
+  // draw tests and the player's queries; every change of the position clears movesCached
+  private final int[] cachedMoves = new int[256];
+  private final long[] cachedTargets = new long[64]; // Legal target squares by source square
+  private int cachedCount;
+  private boolean movesCached;
+
+  // State saved by makeMove(int) for each ply, so unmakeMove() can restore it without allocating
+  private int ply;
+  private int firstPly; // A copy starts with the keys of the plies before it, which cannot be undone
+  private int[] plyMoves = new int[64];
+  private Piece[] plyCaptured = new Piece[64];
+  private ChessPiece[] plyPromotedPawn = new ChessPiece[64];
+  private ChessPiece[] plyPromotedPiece = new ChessPiece[64]; // Kept after an undo, so a redo reuses the piece
+  private ChessPiece[] plyPromoted = new ChessPiece[64];
+  private ChessPiece[] plyEnPassantVulnerable = new ChessPiece[64];
+  private boolean[] plyCheck = new boolean[64];
+  private long[] plyKeys = new long[64]; // Zobrist key of the position each ply was played from
+  private DrawReason[] plyDrawReason = new DrawReason[64];
+  private int[] plyHalfmoveClock = new int[64];
   private List<Piece> capturedPieces = new ArrayList<>();
 
+  // Moves taken back with undo(), the last one on top; a new move played with performChessMove clears them
+  private int[] redoMoves = new int[64];
+  private int redoCount;
+
   //Dimensão do tabuleiro
   public ChessMatch() {
-   board = new Board(8,8 );
+   board = new ChessBoard();
    turn = 1;
    currentPlayer = Color.WHITE;
    initialSetup();
   }
 
+  /**
+  * Constructs a match with an empty board, to be filled by a position loader such as Fen.
+  * @param currentPlayer the side to move.
+  * @param turn the turn number.
+  */
+  ChessMatch(Color currentPlayer, int turn) {
+    board = new ChessBoard();
+    this.turn = turn;
+    this.currentPlayer = currentPlayer;
+  }
+
+  /**
+  * Creates a match from a position in Forsyth-Edwards Notation.
+  * @param fen the position, for example "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+  * @return a new match set up in that position.
+  * @throws ChessException if the text is not a valid FEN position.
+  */
+  public static ChessMatch fromFen(CharSequence fen) {
+    return Fen.parse(fen);
+  }
+
+  /**
+  * Creates an independent copy of the current position, for example to search it on another thread.
+  * The copy has its own board and pieces, with the same move counts, turn, side to move and
+  * "en passant" state. The captured pieces are not copied and the moves played cannot be undone on
+  * the copy, but the keys of the positions since the last capture or pawn move are, so the copy
+  * finds the same repetitions as the match.
+  * @return a new match in the same position.
+  */
+  public ChessMatch copy() {
+    Color side = sideToMove();
+    ChessMatch copy = new ChessMatch(side, (side == currentPlayer) ? turn : turn + 1);
+    ChessPiece enPassant = null;
+    for (long bits = board.occupancy(); bits != 0; bits &= bits - 1) {
+      int square = Long.numberOfTrailingZeros(bits);
+      ChessPiece piece = board.piece(square);
+      ChessPiece clone = copy.newPiece(piece.getType(), piece.getColor());
+      for (int i = 0; i < piece.getMoveCount(); i++) {
+        clone.increaseMoveCount();
+      }
+      copy.placeNewPiece(square, clone);
+      if (piece == enPassantVulnerable) {
+        enPassant = clone;
+      }
+    }
+    int history = Math.min(ply, halfmoveClock);
+    while (copy.plyKeys.length < history) {
+      copy.growPlyHistory();
+    }
+    System.arraycopy(plyKeys, ply - history, copy.plyKeys, 0, history);
+    copy.ply = history;
+    copy.firstPly = history;
+    copy.completeSetup(enPassant, halfmoveClock);
+    return copy;
+  }
+
+  /**
+  * Writes the current position in Forsyth-Edwards Notation.
+  * @return the FEN text, such as "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+  */
+  public String toFen() {
+    return Fen.format(this);
+  }
+
+  /**
+  * Works out the side to move in the position on the board. It is the current player, except
+  * after a checkmate delivered with performChessMove, which leaves the turn with the winner.
+  * @return the color of the side to move.
+  */
+  Color sideToMove() {
+    return (checkMate && !testCheck(currentPlayer)) ? opponent(currentPlayer) : currentPlayer;
+  }
+
+  /**
+  * Takes an immutable, compact copy of the current position.
+  * @return the snapshot.
+  */
+  public PositionSnapshot snapshot() {
+    long[] squares = new long[4];
+    for (long bits = board.occupancy(); bits != 0; bits &= bits - 1) {
+      int square = Long.numberOfTrailingZeros(bits);
+      squares[square >>> 4] |= (long)PositionSnapshot.code(board.piece(square)) << ((square & 15) * 4);
+    }
+    int enPassantFile = (enPassantVulnerable == null) ? -1 : enPassantVulnerable.getSquare() & 7;
+    Color side = sideToMove();
+    return new PositionSnapshot(squares, side, getCastlingRights(), enPassantFile, halfmoveClock, (side == currentPlayer) ? turn : turn + 1);
+  }
+
+  /**
+  * Creates a match in the position of a snapshot.
+  * @param snapshot the position.
+  * @return a new match, with no move history.
+  * @throws ChessException if the snapshot does not hold one king of each color.
+  */
+  public static ChessMatch fromSnapshot(PositionSnapshot snapshot) {
+    ChessMatch match = new ChessMatch(snapshot.getSideToMove(), snapshot.getTurn());
+    for (int square = 0; square < 64; square++) {
+      PieceType type = snapshot.getType(square);
+      if (type != null) {
+        Color color = snapshot.getColor(square);
+        ChessPiece piece = match.newPiece(type, color);
+        if (Fen.hasMoved(type, color, square, snapshot.getCastlingRights())) {
+          piece.increaseMoveCount();
+        }
+        match.placeNewPiece(square, piece);
+      }
+    }
+    int pawnSquare = snapshot.getEnPassantPawn();
+    try {
+      match.completeSetup(pawnSquare < 0 ? null : match.board.piece(pawnSquare), snapshot.getHalfmoveClock());
+    }
+    catch (IllegalStateException e) {
+      throw new ChessException(e.getMessage());
+    }
+    return match;
+  }
+
   /**
    * @brief Gets the current turn number.
    * @return The current turn number.
@@ -88,6 +244,94 @@ public class ChessMatch {
     return checkMate;
   }
 
+  /**
+  * Checks if the match is drawn: by stalemate, threefold repetition, the fifty-move rule or
+  * insufficient material. The match is drawn as soon as a rule applies, without a claim.
+  * @return true if the match is drawn, false otherwise.
+  */
+  public boolean getDraw() {
+    return drawReason != null;
+  }
+
+  /**
+  * Gets the rule that drew the match.
+  * @return the reason, or null if the match is not drawn.
+  */
+  public DrawReason getDrawReason() {
+    return drawReason;
+  }
+
+  /**
+  * Counts how many times the current position has occurred, including now. Only the positions
+  * since the last capture or pawn move are compared, since no earlier one can come back.
+  * @return the number of occurrences, 1 if the position is new.
+  */
+  public int getRepetitionCount() {
+    long key = getZobristKey();
+    int count = 1;
+    int oldest = Math.max(ply - halfmoveClock, 0);
+    for (int i = ply - 2; i >= oldest; i -= 2) {
+      if (plyKeys[i] == key) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+  * Checks if neither side can possibly give checkmate: bare kings, a single minor piece, or only
+  * bishops that all stand on squares of the same color.
+  * @return true if the material on the board cannot mate.
+  */
+  public boolean isInsufficientMaterial() {
+    long heavy = 0;
+    long knights = 0;
+    long bishops = 0;
+    for (Color color : Color.values()) {
+      heavy |= board.pieces(color, PieceType.PAWN) | board.pieces(color, PieceType.ROOK) | board.pieces(color, PieceType.QUEEN);
+      knights |= board.pieces(color, PieceType.KNIGHT);
+      bishops |= board.pieces(color, PieceType.BISHOP);
+    }
+    if (heavy != 0) {
+      return false;
+    }
+    if (Long.bitCount(knights | bishops) <= 1) {
+      return true;
+    }
+    return knights == 0 && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
+  }
+
+  /**
+  * Works out whether the position on the board is drawn.
+  * @return the reason, or null if the game goes on.
+  */
+  private DrawReason findDraw() {
+    if (checkMate) {
+      return null;
+    }
+    if (!check && cacheLegalMoves() == 0) {
+      return DrawReason.STALEMATE;
+    }
+    if (halfmoveClock >= 100) {
+      return DrawReason.FIFTY_MOVE_RULE;
+    }
+    if (isInsufficientMaterial()) {
+      return DrawReason.INSUFFICIENT_MATERIAL;
+    }
+    if (getRepetitionCount() >= 3) {
+      return DrawReason.THREEFOLD_REPETITION;
+    }
+    return null;
+  }
+
+  /**
+  * Gets the number of half moves played since the last capture or pawn move, for the fifty-move rule.
+  * @return the halfmove clock.
+  */
+  public int getHalfmoveClock() {
+    return halfmoveClock;
+  }
+
   /**
   * Retrieves the piece vulnerable to "en passant" move.
   * @return the piece vulnerable to "en passant" move, or null if there is none.
@@ -104,6 +348,53 @@ public class ChessMatch {
     return promoted;
   }
 
+  /**
+  * Retrieves the bitboard of the pieces of a given color and type, for engines and evaluators.
+  * @param color the color of the pieces.
+  * @param type the type of the pieces.
+  * @return a mask with one bit set for every square holding such a piece (a8 = bit 0, h1 = bit 63).
+  */
+  public long getBitboard(Color color, PieceType type) {
+    return board.pieces(color, type);
+  }
+
+  /**
+  * Retrieves the piece on a square.
+  * @param square the square index, from 0 (a8) to 63 (h1).
+  * @return the piece on the square, or null if it is empty.
+  */
+  public ChessPiece getPiece(int square) {
+    return board.piece(square);
+  }
+
+  /**
+  * Gets the board of the match, for the position loaders and tools of this package.
+  * @return the board.
+  */
+  ChessBoard getBoard() {
+    return board;
+  }
+
+  /**
+  * Retrieves the 64-bit Zobrist key of the current position.
+  * The piece placement part is maintained by the board on every placement and removal, so makeMove,
+  * unmakeMove and replacePromotedPiece keep it current as they go; the side to move, castling rights
+  * and "en passant" file are folded in with a few table lookups. The "en passant" file only counts
+  * when a pawn of the side to move could actually capture.
+  * @return the key identifying the position.
+  */
+  public long getZobristKey() {
+    long key = board.getKey() ^ Zobrist.side(currentPlayer) ^ Zobrist.castling(getCastlingRights());
+    if (enPassantVulnerable != null && enPassantVulnerable.getColor() != currentPlayer) {
+      int square = enPassantVulnerable.getSquare();
+      int target = (currentPlayer == Color.WHITE) ? square - 8 : square + 8;
+      if ((Attacks.pawn(enPassantVulnerable.getColor(), target) & board.pieces(currentPlayer, PieceType.PAWN)) != 0) {
+        key ^= Zobrist.enPassant(square & 7);
+      }
+    }
+    return key;
+  }
+
   /**
   * Retrieves a matrix representing the current state of the chessboard.
   * @return a matrix of game pieces.
@@ -122,14 +413,43 @@ public class ChessMatch {
   }
 
   /**
-  * Retrieves a boolean matrix representing the possible moves of a piece.
+  * Retrieves a boolean matrix representing the legal moves of a piece.
+  * Moves that would leave the player's own king in check are not included.
   * @param sourcePosition the position of the piece to check possible moves for.
   * @return a boolean matrix representing the possible moves.
   */
   public boolean[][] possibleMoves(ChessPosition sourcePosition) {
     Position position = sourcePosition.toPosition();
-    validateSourcePosition(position);
-    return board.piece(position).possibleMoves();
+    validateSourcePosition(position, false);
+    ChessPiece piece = (ChessPiece)board.piece(position);
+    ChessMetrics.possibleMovesListed(piece.getType());
+    return piece.toMatrix(legalTargets(ChessBoard.square(position)));
+  }
+
+  /**
+  * Writes the possible moves of the current player into a caller-supplied buffer, encoded as described in Move.
+  * Unlike possibleMoves and legalMoves, it does not test if a move leaves the player's own king in check.
+  * Nothing is allocated, so the same buffer can be reused across calls.
+  * @param moves the buffer receiving the moves; 256 entries are enough for any position.
+  * @return the number of moves written to the buffer.
+  */
+  public int generateMoves(int[] moves) {
+    List<Piece> list = pieces(currentPlayer);
+    int count = 0;
+    for (int i = 0; i < list.size(); i++) {
+      count = ((ChessPiece)list.get(i)).generateMoves(moves, count);
+    }
+    return count;
+  }
+
+  /**
+  * Writes the legal moves of the current player into a caller-supplied buffer, encoded as described in Move.
+  * Pins and check evasions are worked out up front, so no move is tried on the board.
+  * @param moves the buffer receiving the moves; 256 entries are enough for any position.
+  * @return the number of moves written to the buffer.
+  */
+  public int legalMoves(int[] moves) {
+    return generateLegalMoves(currentPlayer, moves);
   }
 
   /**
@@ -142,60 +462,187 @@ public class ChessMatch {
   */
 
   public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
+    boolean metrics = ChessMetrics.isEnabled();
+    long startBytes = metrics ? ChessMetrics.allocatedBytes() : 0L;
+    long startNanos = metrics ? System.nanoTime() : 0L;
     Position source = sourcePosition.toPosition();
     Position target = targetPosition.toPosition();
-    validateSourcePosition(source);
+    validateSourcePosition(source, true);
     validateTargetPosition(source, target);
-    Piece capturePiece = makeMove(source, target);
 
     // Checks if the move leaves own king in check
-    if (testCheck(currentPlayer)) {
-      undoMove(source, target, capturePiece);
+    if ((legalTargets(ChessBoard.square(source)) & (1L << ChessBoard.square(target))) == 0) {
+      ChessMetrics.rejected(Rejection.KING_LEFT_IN_CHECK);
       throw new ChessException("Kamikazes not here");
     }
 
-    // Gets the moved piece
-    ChessPiece movedPiece = (ChessPiece)board.piece(target);
+    int move = encodeMove(ChessBoard.square(source), ChessBoard.square(target));
+    redoCount = 0; // A new move discards the moves that were undone
+    playGameMove(move);
+    if (metrics) {
+      ChessMetrics.movePerformed(startNanos, startBytes);
+    }
+    return (ChessPiece)plyCaptured[ply - 1];
+  }
 
-    //#SpecialMove Promotion
-    promoted = null;
-    if (movedPiece instanceof Pawn) {
-      if ((movedPiece.getColor() == Color.WHITE && target.getRow() == 0) || (movedPiece.getColor() == Color.BLACK && target.getRow() == 7)) {
-        promoted = (ChessPiece)board.piece(target);
-        promoted = replacePromotedPiece("Q");
+  /**
+  * Finds the encoded form of a legal move, with the flags for castling, "en passant", double pawn
+  * pushes and promotion, which is to a queen until replacePromotedPiece says otherwise.
+  * @param from the source square.
+  * @param to the target square.
+  * @return the encoded move.
+  */
+  private int encodeMove(int from, int to) {
+    int n = cacheLegalMoves();
+    for (int i = 0; i < n; i++) {
+      int move = cachedMoves[i];
+      if (Move.from(move) == from && Move.to(move) == to && (!Move.isPromotion(move) || Move.promotion(move) == PieceType.QUEEN)) {
+        return move;
       }
     }
+    throw new IllegalStateException("No move from " + Move.squareName(from) + " to " + Move.squareName(to));
+  }
 
-    // Checks if the opponent is in check after the move
-    check = (testCheck(opponent(currentPlayer))) ? true : false;
+  /**
+  * Plays a move on behalf of a player: applies it, offers a promoted piece for replacement and
+  * looks for checkmate, in which case the turn stays with the winner, and for a draw.
+  * @param move the encoded legal move.
+  */
+  private void playGameMove(int move) {
+    makeMove(move);
+    promoted = Move.isPromotion(move) ? board.piece(Move.to(move)) : null;
+    if (testCheckMate(currentPlayer)) {
+      declareCheckMate();
+    }
+    drawReason = findDraw();
+  }
 
-    // Checks if the opponent is in checkmate
-    if (testCheckMate(opponent(currentPlayer))) {
-      checkMate = true;
+  /**
+  * Takes back the last move, restoring the whole match as it was before: board, turn, side to move,
+  * check and checkmate flags, "en passant" pawn, promotion and captured pieces. The move can be
+  * played again with redo(). Each undo costs the same however long the game is.
+  * @throws IllegalStateException if there is no move to take back.
+  */
+  public void undo() {
+    if (ply == firstPly) {
+      throw new IllegalStateException("There is no move to undo");
     }
-    else {
-      nextTurn();
+    if (redoCount == redoMoves.length) {
+      redoMoves = Arrays.copyOf(redoMoves, redoCount * 2);
     }
+    redoMoves[redoCount++] = plyMoves[ply - 1];
+    unmakeMove();
+  }
 
-    // #specialmove en passant
-    if (movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
-      enPassantVulnerable = movedPiece;
+  /**
+  * Plays again the last move taken back with undo().
+  * @throws IllegalStateException if there is no move to redo.
+  */
+  public void redo() {
+    if (redoCount == 0) {
+      throw new IllegalStateException("There is no move to redo");
     }
-    else {
-      enPassantVulnerable = null;
+    playGameMove(redoMoves[--redoCount]);
+  }
+
+  /**
+  * Checks if there is a move to take back with undo().
+  * @return true if a move can be undone, false otherwise.
+  */
+  public boolean canUndo() {
+    return ply > firstPly;
+  }
+
+  /**
+  * Checks if there is a move taken back with undo() that redo() can play again.
+  * @return true if a move can be redone, false otherwise.
+  */
+  public boolean canRedo() {
+    return redoCount > 0;
+  }
+
+  /**
+  * Gets the number of moves on the move stack, played since the match was created or loaded.
+  * @return the number of half moves that can be undone.
+  */
+  public int getPly() {
+    return ply - firstPly;
+  }
+
+  /**
+  * Gets a move of the move stack.
+  * @param index the index of the move, from 0 (the first move) to getPly() - 1.
+  * @return the encoded move.
+  * @throws IndexOutOfBoundsException if there is no such move.
+  */
+  public int getMove(int index) {
+    if (index < 0 || index >= getPly()) {
+      throw new IndexOutOfBoundsException("No move " + index + " in a history of " + getPly());
     }
+    return plyMoves[firstPly + index];
+  }
 
-    return (ChessPiece)capturePiece;
+  /**
+  * Gets the Zobrist key of the position a move of the move stack was played from.
+  * @param index the index of the move, from 0 (the first move) to getPly() - 1.
+  * @return the key, as getZobristKey() gave it before the move.
+  * @throws IndexOutOfBoundsException if there is no such move.
+  */
+  public long getPositionKey(int index) {
+    if (index < 0 || index >= getPly()) {
+      throw new IndexOutOfBoundsException("No move " + index + " in a history of " + getPly());
+    }
+    return plyKeys[firstPly + index];
   }
 
   /**
   * Replaces a promoted pawn with a piece chosen by the player.
+  * The check and checkmate flags are worked out again for the new piece, since a knight may give a
+  * check the queen did not, and the other way around.
   * @param type the type of piece the pawn was promoted to ("B" for bishop, "N" for knight, "R" for rook, "Q" for queen).
   * @return the new promoted piece.
   * @throws IllegalStateException if there is no piece to be promoted.
   */
 
   public ChessPiece replacePromotedPiece(String type) {
+    PromotionEvent event = new PromotionEvent();
+    event.begin();
+    ChessPiece newPiece = promote(type);
+    int candidates = 0;
+    if (newPiece != promoted) {
+      // The recorded move now promotes to the chosen piece, so undo and redo bring it back
+      int move = plyMoves[ply - 1];
+      int flags = (Move.flags(move) & Move.CAPTURE) | Move.promotionFlags(newPiece.getType());
+      plyMoves[ply - 1] = Move.encode(Move.from(move), Move.to(move), flags);
+      plyPromotedPiece[ply - 1] = newPiece;
+      promoted = newPiece;
+
+      if (checkMate) {
+        checkMate = false;
+        nextTurn();
+      }
+      check = testCheck(currentPlayer);
+      candidates = check ? cacheLegalMoves() : 0;
+      if (testCheckMate(currentPlayer)) {
+        declareCheckMate();
+      }
+      drawReason = findDraw();
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.set(newPiece, plyMoves[ply - 1], candidates);
+      event.commit();
+    }
+    return newPiece;
+  }
+
+  /**
+  * Swaps the promoted piece for a new piece of the chosen type, leaving the match flags alone.
+  * @param type the type of the new piece ("B", "N", "R" or "Q").
+  * @return the new piece, or the promoted piece itself if the type is not valid.
+  * @throws IllegalStateException if there is no piece to be promoted.
+  */
+  private ChessPiece promote(String type) {
     if (promoted == null) {
       throw new IllegalStateException("There is no piece to be promoted");
     }
@@ -203,14 +650,15 @@ public class ChessMatch {
       return promoted;
     }
 
-    Position pos = promoted.getChessPosition().toPosition();
-    Piece p = board.removePiece(pos);
-    piecesOnTheBoard.remove(p);
+    int square = promoted.getSquare();
+    movesCached = false;
+    board.removePiece(square);
+    pieces(promoted.getColor()).remove(promoted);
 
     // Creates and places the new promoted piece on the board
     ChessPiece newPiece = newPiece(type, promoted.getColor());
-    board.placePiece(newPiece, pos);
-    piecesOnTheBoard.add(newPiece);
+    board.placePiece(newPiece, square);
+    pieces(newPiece.getColor()).add(newPiece);
 
     return newPiece;
   }
@@ -229,127 +677,235 @@ public class ChessMatch {
     if (type.equals("Q")) return new Queen(board, color);
     return new Rook(board, color);
   }
-  
+
   /**
-  * Performs a chess piece movement on the board.
-  * @param source the source position of the piece to be moved.
-  * @param target the target position where the piece will be moved to.
-  * @return the piece captured during the movement, if any, or null otherwise.
+  * Creates a new piece of any type for this match.
+  * @param type the type of piece to be created.
+  * @param color the color of the piece to be created.
+  * @return a new instance of the specified piece.
   */
-  private Piece makeMove(Position source, Position target) {
-    ChessPiece p = (ChessPiece)board.removePiece(source);
+  ChessPiece newPiece(PieceType type, Color color) {
+    switch (type) {
+      case PAWN: return new Pawn(board, color, this);
+      case KNIGHT: return new Knight(board, color);
+      case BISHOP: return new Bishop(board, color);
+      case ROOK: return new Rook(board, color);
+      case QUEEN: return new Queen(board, color);
+      default: return new King(board, color, this);
+    }
+  }
+
+  /**
+  * Applies a move encoded as described in Move, for engines and tools that walk the game tree.
+  * The move must come from legalMoves; it is not validated. Captures, castling, "en passant" and
+  * promotion are all handled, the turn passes to the opponent and the check flag is updated.
+  * Everything needed to take the move back is saved in preallocated per-ply arrays.
+  * @param move the encoded move.
+  */
+  public void makeMove(int move) {
+    movesCached = false;
+    if (ply == plyMoves.length) {
+      growPlyHistory();
+    }
+    int from = Move.from(move);
+    int to = Move.to(move);
+    int flags = Move.flags(move);
+    Color color = currentPlayer;
+
+    plyMoves[ply] = move;
+    plyEnPassantVulnerable[ply] = enPassantVulnerable;
+    plyCheck[ply] = check;
+    plyKeys[ply] = getZobristKey();
+    plyDrawReason[ply] = drawReason;
+    plyHalfmoveClock[ply] = halfmoveClock;
+    plyPromoted[ply] = promoted;
+    promoted = null; // Only performChessMove offers the piece of its own move for replacement
+
+    ChessPiece p = board.removePiece(from);
+    halfmoveClock = (p.getType() == PieceType.PAWN || Move.isCapture(move)) ? 0 : halfmoveClock + 1;
     p.increaseMoveCount();
-    Piece capturedPiece = board.removePiece(target);
-    board.placePiece(p, target);
-  
-    // Capturing a piece if it exists
+    Piece capturedPiece;
+    if (flags == Move.EN_PASSANT) {
+      capturedPiece = board.removePiece((color == Color.WHITE) ? to + 8 : to - 8);
+    }
+    else {
+      capturedPiece = board.removePiece(to);
+    }
     if (capturedPiece != null) {
-        piecesOnTheBoard.remove(capturedPiece);
-        capturedPieces.add(capturedPiece);
+      pieces(opponent(color)).remove(capturedPiece);
+      capturedPieces.add(capturedPiece);
     }
-  
-    // Special move: castling kingside
-    if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-        Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-        Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-        ChessPiece rook = (ChessPiece)board.removePiece(sourceT);
-        board.placePiece(rook, targetT);
-        rook.increaseMoveCount();
+    plyCaptured[ply] = capturedPiece;
+
+    // Special move: castling, the rook jumps over the king
+    if (flags == Move.KING_CASTLE) {
+      ChessPiece rook = board.removePiece(from + 3);
+      board.placePiece(rook, from + 1);
+      rook.increaseMoveCount();
     }
-  
-    // Special move: castling queenside
-    if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-        Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-        Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-        ChessPiece rook = (ChessPiece)board.removePiece(sourceT);
-        board.placePiece(rook, targetT);
-        rook.increaseMoveCount();
+    else if (flags == Move.QUEEN_CASTLE) {
+      ChessPiece rook = board.removePiece(from - 4);
+      board.placePiece(rook, from - 1);
+      rook.increaseMoveCount();
     }
-  
-    // Special move: "en passant"
-    if (p instanceof Pawn) {
-        if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-            Position pawnPosition;
-            if (p.getColor() == Color.WHITE) {
-                pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-            } else {
-                pawnPosition = new Position(target.getRow() - 1, target.getColumn());
-            }
-            capturedPiece = board.removePiece(pawnPosition);
-            capturedPieces.add(capturedPiece);
-            piecesOnTheBoard.remove(capturedPiece);
-        }
+
+    // Special move: promotion, the pawn is set aside so it can come back on undo
+    if (Move.isPromotion(move)) {
+      pieces(color).remove(p);
+      plyPromotedPawn[ply] = p;
+      ChessPiece piece = plyPromotedPiece[ply];
+      if (piece == null || piece.getType() != Move.promotion(move) || piece.getColor() != color) {
+        piece = newPiece(Move.promotion(move), color);
+        plyPromotedPiece[ply] = piece;
+      }
+      p = piece;
+      pieces(color).add(p);
     }
-  
-    return capturedPiece;
+    board.placePiece(p, to);
+
+    enPassantVulnerable = (flags == Move.DOUBLE_PAWN_PUSH) ? p : null;
+    nextTurn();
+    check = testCheck(currentPlayer);
+    ply++;
   }
-  
+
   /**
-  * Undoes a movement made on the board.
-  * @param source the source position of the movement.
-  * @param target the target position of the movement.
-  * @param capturedPiece the piece captured during the movement.
+  * Plays a sequence of encoded moves, such as a stored game, through the fast makeMove(int) path.
+  * The moves must be legal in turn; they are not validated. Afterwards the check and checkmate
+  * and draw flags describe the final position, as they would after the same moves played with performChessMove.
+  * @param moves the encoded moves.
+  * @param count the number of moves to play.
   */
-  private void undoMove(Position source, Position target, Piece capturedPiece) {
-    ChessPiece p = (ChessPiece)board.removePiece(target);
-    p.decreaseMoveCount();
-    
-    board.placePiece(p, source);
-  
-    // Puts the captured piece back on the board, if any
-    if (capturedPiece != null) {
-        board.placePiece(capturedPiece, target);
-        capturedPieces.remove(capturedPiece);
-        piecesOnTheBoard.add(capturedPiece);
+  public void playMoves(int[] moves, int count) {
+    for (int i = 0; i < count; i++) {
+      makeMove(moves[i]);
     }
-  
-    // Undoes the special move of castling kingside
-    if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-        Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-        Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-        ChessPiece rook = (ChessPiece)board.removePiece(targetT);
-        board.placePiece(rook, sourceT);
-        rook.decreaseMoveCount();
+    if (testCheckMate(currentPlayer)) {
+      declareCheckMate();
     }
-  
-    // Undoes the special move of castling queenside
-    if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-        Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-        Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-        ChessPiece rook = (ChessPiece)board.removePiece(targetT);
-        board.placePiece(rook, sourceT);
-        rook.decreaseMoveCount();
+    drawReason = findDraw();
+  }
+
+  /**
+  * Takes back the last move applied with makeMove(int), restoring the previous position exactly.
+  * @throws IllegalStateException if there is no move to take back.
+  */
+  public void unmakeMove() {
+    if (ply == firstPly) {
+      throw new IllegalStateException("There is no move to take back");
     }
-  
-    // Undoes the special move of "en passant"
-    if (p instanceof Pawn) {
-        if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-            ChessPiece pawn = (ChessPiece)board.removePiece(target);
-            Position pawnPosition;
-            if (p.getColor() == Color.WHITE) {
-                pawnPosition = new Position(3, target.getColumn());
-            } else {
-                pawnPosition = new Position(4, target.getColumn());
-            }
-            board.placePiece(pawn, pawnPosition);
-        }
+    movesCached = false;
+    if (checkMate) {
+      // The turn was left with the winner; give it back to the mated side first
+      checkMate = false;
+      nextTurn();
+    }
+    ply--;
+    int move = plyMoves[ply];
+    int from = Move.from(move);
+    int to = Move.to(move);
+    int flags = Move.flags(move);
+    turn--;
+    currentPlayer = opponent(currentPlayer);
+    Color color = currentPlayer;
+
+    ChessPiece p = board.removePiece(to);
+    ChessPiece pawn = plyPromotedPawn[ply];
+    if (pawn != null) {
+      pieces(color).remove(p);
+      pieces(color).add(pawn);
+      p = pawn;
+      plyPromotedPawn[ply] = null;
     }
+    p.decreaseMoveCount();
+    board.placePiece(p, from);
+
+    if (flags == Move.KING_CASTLE) {
+      ChessPiece rook = board.removePiece(from + 1);
+      board.placePiece(rook, from + 3);
+      rook.decreaseMoveCount();
+    }
+    else if (flags == Move.QUEEN_CASTLE) {
+      ChessPiece rook = board.removePiece(from - 1);
+      board.placePiece(rook, from - 4);
+      rook.decreaseMoveCount();
+    }
+
+    Piece capturedPiece = plyCaptured[ply];
+    if (capturedPiece != null) {
+      if (flags == Move.EN_PASSANT) {
+        board.placePiece(capturedPiece, (color == Color.WHITE) ? to + 8 : to - 8);
+      }
+      else {
+        board.placePiece(capturedPiece, to);
+      }
+      capturedPieces.remove(capturedPieces.size() - 1);
+      pieces(opponent(color)).add(capturedPiece);
+      plyCaptured[ply] = null;
+    }
+
+    enPassantVulnerable = plyEnPassantVulnerable[ply];
+    plyEnPassantVulnerable[ply] = null;
+    check = plyCheck[ply];
+    drawReason = plyDrawReason[ply];
+    plyDrawReason[ply] = null;
+    halfmoveClock = plyHalfmoveClock[ply];
+    promoted = plyPromoted[ply];
+    plyPromoted[ply] = null;
+  }
+
+  /**
+  * Doubles the capacity of the per-ply history arrays.
+  */
+  private void growPlyHistory() {
+    int capacity = plyMoves.length * 2;
+    plyMoves = Arrays.copyOf(plyMoves, capacity);
+    plyCaptured = Arrays.copyOf(plyCaptured, capacity);
+    plyPromotedPawn = Arrays.copyOf(plyPromotedPawn, capacity);
+    plyPromotedPiece = Arrays.copyOf(plyPromotedPiece, capacity);
+    plyPromoted = Arrays.copyOf(plyPromoted, capacity);
+    plyEnPassantVulnerable = Arrays.copyOf(plyEnPassantVulnerable, capacity);
+    plyCheck = Arrays.copyOf(plyCheck, capacity);
+    plyKeys = Arrays.copyOf(plyKeys, capacity);
+    plyDrawReason = Arrays.copyOf(plyDrawReason, capacity);
+    plyHalfmoveClock = Arrays.copyOf(plyHalfmoveClock, capacity);
   }
   
     /**
   * Validates if the source position of a movement is valid.
   * @param position the source position of the movement.
+  * @param move true if a move is being played, so that a rejection is counted by ChessMetrics; false for a query.
   * @throws ChessException if the source position does not contain a piece of the current player or if there are no possible moves for the piece.
   */
-  private void validateSourcePosition(Position position) {
-    if (!board.thereIsAPiece(position)) {
-        throw new ChessException("There is no piece on source position");
-    }
-    if (currentPlayer != ((ChessPiece)board.piece(position)).getColor()) {
-        throw new ChessException("The chosen piece is not yours.");
+  private void validateSourcePosition(Position position, boolean move) {
+    SourceValidationEvent event = new SourceValidationEvent();
+    event.begin();
+    Rejection rejection = null;
+    long targets = 0L;
+    try {
+      if (!board.thereIsAPiece(position)) {
+          rejection = Rejection.NO_PIECE;
+          throw new ChessException("There is no piece on source position");
+      }
+      if (currentPlayer != ((ChessPiece)board.piece(position)).getColor()) {
+          rejection = Rejection.NOT_OWN_PIECE;
+          throw new ChessException("The chosen piece is not yours.");
+      }
+      targets = legalTargets(ChessBoard.square(position));
+      if (targets == 0) {
+          rejection = Rejection.NO_LEGAL_MOVE;
+          throw new ChessException("There is no possible moves for the chosen piece");
+      }
     }
-    if (!board.piece(position).isThereAnyPossibleMove()) {
-        throw new ChessException("There is no possible moves for the chosen piece");
+    finally {
+      event.end();
+      if (move && rejection != null) {
+        ChessMetrics.rejected(rejection);
+      }
+      if (event.shouldCommit()) {
+        event.set((ChessPiece)board.piece(position), ChessBoard.square(position), Long.bitCount(targets), rejection);
+        event.commit();
+      }
     }
   }
 
@@ -360,7 +916,18 @@ public class ChessMatch {
   * @throws ChessException if the source piece cannot move to the target position.
   */
   private void validateTargetPosition(Position source, Position target) {
-    if (!board.piece(source).possibleMove(target)) {
+    TargetValidationEvent event = new TargetValidationEvent();
+    event.begin();
+    // A legal target is reachable; otherwise the piece's own moves tell an unreachable square from a move into check
+    boolean reachable = (legalTargets(ChessBoard.square(source)) & (1L << ChessBoard.square(target))) != 0
+        || board.piece(source).possibleMove(target);
+    event.end();
+    if (event.shouldCommit()) {
+      event.set((ChessPiece)board.piece(source), ChessBoard.square(source), ChessBoard.square(target), reachable);
+      event.commit();
+    }
+    if (!reachable) {
+        ChessMetrics.rejected(Rejection.UNREACHABLE_TARGET);
         throw new ChessException("The chosen piece can't move to target position");
     }
   }
@@ -369,6 +936,7 @@ public class ChessMatch {
   * Advances to the next turn by changing the current player.
   */
   private void nextTurn() {
+    movesCached = false;
     turn++;
     currentPlayer = (currentPlayer == Color.WHITE) ? Color.BLACK : Color.WHITE;
   }
@@ -382,6 +950,88 @@ public class ChessMatch {
     return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
   }
 
+  /**
+  * Works out the castling rights left in the position from the kings and rooks that have never moved.
+  * @return a combination of the Zobrist castling bits, such as Zobrist.WHITE_KINGSIDE, or 0 if no castling is left.
+  */
+  public int getCastlingRights() {
+    int rights = 0;
+    if (hasNotMoved(60, PieceType.KING, Color.WHITE)) {
+      if (hasNotMoved(63, PieceType.ROOK, Color.WHITE)) {
+        rights |= Zobrist.WHITE_KINGSIDE;
+      }
+      if (hasNotMoved(56, PieceType.ROOK, Color.WHITE)) {
+        rights |= Zobrist.WHITE_QUEENSIDE;
+      }
+    }
+    if (hasNotMoved(4, PieceType.KING, Color.BLACK)) {
+      if (hasNotMoved(7, PieceType.ROOK, Color.BLACK)) {
+        rights |= Zobrist.BLACK_KINGSIDE;
+      }
+      if (hasNotMoved(0, PieceType.ROOK, Color.BLACK)) {
+        rights |= Zobrist.BLACK_QUEENSIDE;
+      }
+    }
+    return rights;
+  }
+
+  /**
+  * Checks if a square holds a piece of the given type and color that has never moved.
+  * @param square the square to check.
+  * @param type the expected piece type.
+  * @param color the expected piece color.
+  * @return true if such a piece is there with a move count of zero, false otherwise.
+  */
+  private boolean hasNotMoved(int square, PieceType type, Color color) {
+    ChessPiece p = board.piece(square);
+    return p != null && p.getType() == type && p.getColor() == color && p.getMoveCount() == 0;
+  }
+
+  /**
+  * Finishes setting up a position placed piece by piece: records the "en passant" pawn and works
+  * out the check and checkmate flags.
+  * @param enPassantVulnerable the pawn that may be captured "en passant", or null.
+  * @param halfmoveClock the half moves played since the last capture or pawn move.
+  * @throws IllegalStateException if a king is missing, or if the side that is not to move is in check,
+  * since its king could then be captured.
+  */
+  void completeSetup(ChessPiece enPassantVulnerable, int halfmoveClock) {
+    this.enPassantVulnerable = enPassantVulnerable;
+    this.halfmoveClock = halfmoveClock;
+    movesCached = false;
+    king(Color.WHITE);
+    king(Color.BLACK);
+    if (testCheck(opponent(currentPlayer))) {
+      throw new IllegalStateException("The " + opponent(currentPlayer) + " King is in check, but it is " + currentPlayer + "'s turn");
+    }
+    check = testCheck(currentPlayer);
+    checkMate = false;
+    if (testCheckMate(currentPlayer)) {
+      declareCheckMate();
+    }
+    drawReason = findDraw();
+  }
+
+  /**
+  * Marks the side to move as checkmated. As in performChessMove, the turn stays with the winner.
+  */
+  private void declareCheckMate() {
+    movesCached = false;
+    checkMate = true;
+    turn--;
+    currentPlayer = opponent(currentPlayer);
+  }
+
+  /**
+  * Gets the list of pieces of a specific color on the board.
+  * The list is kept up to date as pieces are placed, captured and promoted.
+  * @param color the color of the pieces.
+  * @return the live list of pieces of that color.
+  */
+  private List<Piece> pieces(Color color) {
+    return (color == Color.WHITE) ? whitePieces : blackPieces;
+  }
+
   /**
   * Finds the king of a specific color on the board.
   * @param color the color of the king to be found.
@@ -389,64 +1039,198 @@ public class ChessMatch {
   * @throws IllegalStateException if there is no king of the specified color on the board.
   */
   private ChessPiece king(Color color) {
-    List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-    for (Piece p : list) {
-        if (p instanceof King) {
-            return(ChessPiece)p;
-        }
+    ChessPiece king = (color == Color.WHITE) ? whiteKing : blackKing;
+    if (king == null) {
+      throw new IllegalStateException("There is no " + color + " King on the board");
     }
-    throw new IllegalStateException("There is no " + color + " King on the board");
+    return king;
   }
 
   /**
   * Checks if the king of a specific color is in check.
+  * Asks the board whether the king's square is attacked, rather than generating every opponent move.
   * @param color the color of the king to be checked.
   * @return true if the king is in check, false otherwise.
   */
   private boolean testCheck(Color color) {
-    Position kingPosition = king(color).getChessPosition().toPosition();
-    List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == opponent(color)).collect(Collectors.toList());
-    for (Piece p : opponentPieces) {
-        boolean[][] mat = p.possibleMoves();
-        if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-            return true;
-        }
-    }
-    return false;
+    ChessMetrics.checkTested();
+    return board.isSquareAttacked(king(color).getSquare(), opponent(color));
   }
 
   /**
   * Checks if the king of a specific color is in checkmate.
+  * Every move played and every position set up goes through here. For the current player the
+  * check flag, already up to date, is used, and the legal moves are generated only when in check.
   * @param color the color of the king to be checked.
-  * @return true if the king is in checkmate, false otherwise.
+  * @return true if the king is in check and there is no legal move to get out of it, false otherwise.
   */
   private boolean testCheckMate(Color color) {
-    if (!testCheck(color)) {
-        return false;
-    }
-
-    List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-    for (Piece p : list) {
-        boolean[][] mat = p.possibleMoves();
-        for (int i = 0; i < board.getRows(); i++) {
-            for (int j = 0; j < board.getColumns(); j ++) {
-                if (mat[i][j]) {
-                    Position source = ((ChessPiece)p).getChessPosition().toPosition();
-                    Position target = new Position(i, j);
-
-                    Piece capturedPiece = makeMove(source, target);
-                    boolean testCheck = testCheck(color);
-                    undoMove(source, target, capturedPiece);
-
-                    if (!testCheck) {
-                        return false;
-                    }
-                }
-            }
+    ChessMetrics.checkMateTested();
+    CheckMateTestEvent event = new CheckMateTestEvent();
+    event.begin();
+    boolean inCheck = (color == currentPlayer) ? check : testCheck(color);
+    int candidates = !inCheck ? 0 : (color == currentPlayer) ? cacheLegalMoves() : generateLegalMoves(color, moveBuffer);
+    event.end();
+    if (event.shouldCommit()) {
+      event.set(color, inCheck, candidates);
+      event.commit();
+    }
+    return inCheck && candidates == 0;
+  }
+
+  /**
+  * Gets the legal target squares of the current player's piece on a square.
+  * @param square the square of the piece.
+  * @return a bitboard with one bit set per legal target square.
+  */
+  private long legalTargets(int square) {
+    cacheLegalMoves();
+    return cachedTargets[square];
+  }
+
+  /**
+  * Generates the legal moves of the current player into cachedMoves, unless they are there already,
+  * so that every query about the same position after the first one is a lookup.
+  * @return the number of legal moves.
+  */
+  private int cacheLegalMoves() {
+    if (!movesCached) {
+      cachedCount = generateLegalMoves(currentPlayer, cachedMoves);
+      Arrays.fill(cachedTargets, 0L);
+      for (int i = 0; i < cachedCount; i++) {
+        cachedTargets[Move.from(cachedMoves[i])] |= 1L << Move.to(cachedMoves[i]);
+      }
+      movesCached = true;
+    }
+    return cachedCount;
+  }
+
+  /**
+  * Generates the strictly legal moves of a color.
+  * First computes the pieces attacking the king and the pieces pinned against it. With two checkers
+  * only the king may move; with one, the other pieces must capture it or block its ray. A pinned
+  * piece may only move along its pin line, and the king may only step onto squares that stay safe
+  * once it has left its square. Castling and "en passant" are checked square by square.
+  * @param color the color of the side to move.
+  * @param moves the buffer receiving the moves.
+  * @return the number of moves written to the buffer.
+  */
+  private int generateLegalMoves(Color color, int[] moves) {
+    Color enemy = opponent(color);
+    ChessPiece king = king(color);
+    int kingSquare = king.getSquare();
+    long occupancy = board.occupancy();
+    long own = board.pieces(color);
+    long checkers = board.attackersTo(kingSquare, enemy, occupancy);
+
+    // King moves, testing the target squares with the king off the board so it cannot hide behind itself
+    long kingMask = 0L;
+    long kingTargets = Attacks.king(kingSquare) & ~own;
+    long withoutKing = occupancy & ~(1L << kingSquare);
+    while (kingTargets != 0) {
+      int to = Long.numberOfTrailingZeros(kingTargets);
+      if (!board.isSquareAttacked(to, enemy, withoutKing)) {
+        kingMask |= 1L << to;
+      }
+      kingTargets &= kingTargets - 1;
+    }
+
+    // Special move castling: the king may not be in check nor pass through an attacked square
+    if (checkers == 0 && king.getMoveCount() == 0) {
+      int column = kingSquare & 7;
+      if (column + 2 < 8 && !board.isSquareAttacked(kingSquare + 1, enemy) && !board.isSquareAttacked(kingSquare + 2, enemy)) {
+        kingMask |= 1L << (kingSquare + 2);
+      }
+      if (column - 2 >= 0 && !board.isSquareAttacked(kingSquare - 1, enemy) && !board.isSquareAttacked(kingSquare - 2, enemy)) {
+        kingMask |= 1L << (kingSquare - 2);
+      }
+    }
+    int count = king.generateMoves(moves, 0, kingMask);
+
+    // Double check: only the king can move
+    if ((checkers & (checkers - 1)) != 0) {
+      return count;
+    }
+
+    // Single check: capture the checker or block its ray
+    long evasionMask = -1L;
+    if (checkers != 0) {
+      int checker = Long.numberOfTrailingZeros(checkers);
+      evasionMask = checkers | Attacks.between(kingSquare, checker);
+    }
+
+    // Pieces pinned against the king by enemy sliders
+    long enemyQueens = board.pieces(enemy, PieceType.QUEEN);
+    long snipers = (Attacks.rook(kingSquare, 0L) & (board.pieces(enemy, PieceType.ROOK) | enemyQueens))
+        | (Attacks.bishop(kingSquare, 0L) & (board.pieces(enemy, PieceType.BISHOP) | enemyQueens));
+    long pinned = 0L;
+    while (snipers != 0) {
+      long blockers = Attacks.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupancy;
+      if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+        pinned |= blockers & own;
+      }
+      snipers &= snipers - 1;
+    }
+
+    // "En passant" target square, tested separately below because it captures off its target square
+    long enPassantTarget = 0L;
+    if (enPassantVulnerable != null && enPassantVulnerable.getColor() == enemy) {
+      int vulnerableSquare = enPassantVulnerable.getSquare();
+      enPassantTarget = 1L << ((color == Color.WHITE) ? vulnerableSquare - 8 : vulnerableSquare + 8);
+    }
+
+    List<Piece> list = pieces(color);
+    for (int i = 0; i < list.size(); i++) {
+      ChessPiece p = (ChessPiece)list.get(i);
+      if (p == king) {
+        continue;
+      }
+      int square = p.getSquare();
+      long mask = evasionMask;
+      if ((pinned & (1L << square)) != 0) {
+        mask &= Attacks.line(kingSquare, square);
+      }
+      if (p instanceof Pawn && enPassantTarget != 0) {
+        int first = count;
+        count = p.generateMoves(moves, count, mask | enPassantTarget);
+        count = filterEnPassant(moves, first, count, color, kingSquare);
+      }
+      else {
+        count = p.generateMoves(moves, count, mask);
+      }
+    }
+    return count;
+  }
+
+  /**
+  * Removes the "en passant" captures that would leave the king in check from a range of the move buffer.
+  * Each one is tested against the occupancy the board would have after the capture, which also covers
+  * the two pawns leaving the same rank and the capture of a pawn that is giving check.
+  * @param moves the move buffer.
+  * @param first the index of the first move to test.
+  * @param count the number of moves in the buffer.
+  * @param color the color of the side to move.
+  * @param kingSquare the square of that side's king.
+  * @return the number of moves in the buffer once the illegal captures are removed.
+  */
+  private int filterEnPassant(int[] moves, int first, int count, Color color, int kingSquare) {
+    int kept = first;
+    for (int i = first; i < count; i++) {
+      int move = moves[i];
+      if (Move.flags(move) == Move.EN_PASSANT) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long capturedBit = 1L << ((color == Color.WHITE) ? to + 8 : to - 8);
+        long occupancy = (board.occupancy() & ~(1L << from) & ~capturedBit) | (1L << to);
+        if ((board.attackersTo(kingSquare, opponent(color), occupancy) & ~capturedBit) != 0) {
+          continue;
         }
+      }
+      moves[kept++] = move;
     }
-    return true;
+    return kept;
   }
+
       /**
   * Places a new piece on the board.
   * @param column the column where the piece will be placed.
@@ -454,8 +1238,26 @@ public class ChessMatch {
   * @param piece the piece to be placed on the board.
   */
   private void placeNewPiece(char column, int row, ChessPiece piece) {
-    board.placePiece(piece, new ChessPosition(column, row).toPosition());
-    piecesOnTheBoard.add(piece);
+    placeNewPiece(ChessBoard.square(new ChessPosition(column, row).toPosition()), piece);
+  }
+
+  /**
+  * Places a new piece on a square of the board.
+  * @param square the square where the piece will be placed.
+  * @param piece the piece to be placed on the board.
+  */
+  void placeNewPiece(int square, ChessPiece piece) {
+    movesCached = false;
+    board.placePiece(piece, square);
+    pieces(piece.getColor()).add(piece);
+    if (piece instanceof King) {
+      if (piece.getColor() == Color.WHITE) {
+        whiteKing = piece;
+      }
+      else {
+        blackKing = piece;
+      }
+    }
   }
     /**
   * Sets up the initial arrangement of pieces on the chessboard.
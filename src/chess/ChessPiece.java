@@ -3,6 +3,7 @@ package chess;
 import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
+import chess.metrics.ChessMetrics;
 
 /**
  * Abstract class representing a chess piece.
@@ -30,6 +31,12 @@ public abstract class ChessPiece extends Piece {
     return color;
   }
 
+  /**
+   * Gets the type of the piece.
+   * @return The type of the piece.
+   */
+  public abstract PieceType getType();
+
   /**
    * Gets the number of moves made by the piece.
    * @return The number of moves made by the piece.
@@ -60,6 +67,83 @@ public abstract class ChessPiece extends Piece {
     return ChessPosition.fromPosition(position);
   }
 
+  /**
+   * Gets the square of the piece on the bitboards of its ChessBoard.
+   * @return The square index, from 0 (a8) to 63 (h1).
+   */
+  public int getSquare() {
+    return ChessBoard.square(position);
+  }
+
+  /**
+   * Gets the board of the piece as a ChessBoard, giving access to its bitboards.
+   * @return The board where the piece is placed.
+   */
+  protected ChessBoard getChessBoard() {
+    return (ChessBoard)getBoard();
+  }
+
+  /**
+   * Gets the squares the piece can move to, without testing if the move leaves its own king in check.
+   * @return A bitboard with one bit set per target square.
+   */
+  public abstract long possibleTargets();
+
+  /**
+   * Generates a matrix of possible moves for the piece.
+   * @return A boolean matrix indicating the possible moves for the piece.
+   */
+  @Override
+  public boolean[][] possibleMoves() {
+    ChessMetrics.possibleMovesListed(getType());
+    return toMatrix(possibleTargets());
+  }
+
+  /**
+   * Writes the possible moves of the piece into a caller-supplied buffer, encoded as described in Move.
+   * Nothing is allocated, so the same buffer can be reused across calls.
+   * @param moves The buffer receiving the moves.
+   * @param count The number of moves already in the buffer; new moves are written from this index on.
+   * @return The number of moves in the buffer after the new ones were added.
+   */
+  public int generateMoves(int[] moves, int count) {
+    return generateMoves(moves, count, -1L);
+  }
+
+  /**
+   * Writes the possible moves of the piece whose target square is in a mask into a caller-supplied buffer.
+   * @param moves The buffer receiving the moves.
+   * @param count The number of moves already in the buffer; new moves are written from this index on.
+   * @param mask The allowed target squares.
+   * @return The number of moves in the buffer after the new ones were added.
+   */
+  public int generateMoves(int[] moves, int count, long mask) {
+    int from = getSquare();
+    long occupancy = getChessBoard().occupancy();
+    long targets = possibleTargets() & mask;
+    while (targets != 0) {
+      int to = Long.numberOfTrailingZeros(targets);
+      moves[count++] = Move.encode(from, to, (occupancy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET);
+      targets &= targets - 1;
+    }
+    return count;
+  }
+
+  /**
+   * Converts a bitboard of target squares into a matrix of possible moves.
+   * @param targets The mask of target squares.
+   * @return A boolean matrix with the target squares set.
+   */
+  protected boolean[][] toMatrix(long targets) {
+    boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+    while (targets != 0) {
+      int square = Long.numberOfTrailingZeros(targets);
+      mat[square >>> 3][square & 7] = true;
+      targets &= targets - 1;
+    }
+    return mat;
+  }
+
   /**
    * Checks if the piece at a given position is an opponent's piece.
    * @param position The position to check.
@@ -0,0 +1,19 @@
+package chess;
+
+/**
+ * The rules under which a match ends in a draw.
+ */
+public enum DrawReason {
+
+  /** The side to move has no legal move and is not in check. */
+  STALEMATE,
+
+  /** The same position has occurred three times, with the same side to move and the same rights. */
+  THREEFOLD_REPETITION,
+
+  /** Fifty moves by each side have been played without a capture or a pawn move. */
+  FIFTY_MOVE_RULE,
+
+  /** Neither side has enough material left to give checkmate. */
+  INSUFFICIENT_MATERIAL
+}
@@ -0,0 +1,369 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes chess positions in Forsyth-Edwards Notation.
+ *
+ * The text is scanned character by character straight from the given CharSequence or
+ * ByteBuffer, without splitting it into fields or copying it. Castling rights are translated
+ * into move counts: a king or rook that has lost its right is marked as having moved.
+ */
+public final class Fen {
+
+  public static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  private Fen() {
+  }
+
+  /**
+   * Creates a match from a FEN position.
+   * @param fen The position text. The halfmove and fullmove fields may be omitted.
+   * @return A new match set up in that position.
+   * @throws ChessException if the text is not a valid FEN position.
+   */
+  public static ChessMatch parse(CharSequence fen) {
+    int length = fen.length();
+    int i = skipSpaces(fen, 0);
+
+    // Field 1: piece placement, from a8 to h1
+    int placementStart = i;
+    while (i < length && fen.charAt(i) != ' ') {
+      i++;
+    }
+    int placementEnd = i;
+
+    // Field 2: side to move
+    i = skipSpaces(fen, i);
+    if (i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) {
+      throw invalid(fen, "side to move must be 'w' or 'b'");
+    }
+    Color sideToMove = (fen.charAt(i++) == 'w') ? Color.WHITE : Color.BLACK;
+
+    // Field 3: castling rights
+    i = skipSpaces(fen, i);
+    int rights = 0;
+    if (i < length && fen.charAt(i) == '-') {
+      i++;
+    }
+    else {
+      while (i < length && fen.charAt(i) != ' ') {
+        switch (fen.charAt(i++)) {
+          case 'K': rights |= Zobrist.WHITE_KINGSIDE; break;
+          case 'Q': rights |= Zobrist.WHITE_QUEENSIDE; break;
+          case 'k': rights |= Zobrist.BLACK_KINGSIDE; break;
+          case 'q': rights |= Zobrist.BLACK_QUEENSIDE; break;
+          default: throw invalid(fen, "unknown castling right");
+        }
+      }
+    }
+
+    // Field 4: "en passant" target square
+    i = skipSpaces(fen, i);
+    int enPassantTarget = -1;
+    if (i < length && fen.charAt(i) == '-') {
+      i++;
+    }
+    else if (i + 1 < length) {
+      char column = fen.charAt(i);
+      char row = fen.charAt(i + 1);
+      if (column < 'a' || column > 'h' || (row != '3' && row != '6')) {
+        throw invalid(fen, "bad en passant square");
+      }
+      enPassantTarget = ChessBoard.square('8' - row, column - 'a');
+      i += 2;
+    }
+    else {
+      throw invalid(fen, "missing en passant field");
+    }
+
+    // Fields 5 and 6: halfmove clock and fullmove number
+    i = skipSpaces(fen, i);
+    int halfmoveClock = 0;
+    int fullmove = 1;
+    if (i < length) {
+      int fieldEnd = fieldEnd(fen, i);
+      halfmoveClock = number(fen, i, fieldEnd, "bad halfmove clock");
+      i = skipSpaces(fen, fieldEnd);
+      if (i < length) {
+        fieldEnd = fieldEnd(fen, i);
+        fullmove = Math.max(number(fen, i, fieldEnd, "bad fullmove number"), 1);
+        i = fieldEnd;
+      }
+    }
+
+    ChessMatch match = new ChessMatch(sideToMove, 2 * (fullmove - 1) + (sideToMove == Color.WHITE ? 1 : 2));
+    placePieces(match, fen, placementStart, placementEnd, rights);
+
+    ChessPiece enPassantVulnerable = null;
+    if (enPassantTarget >= 0) {
+      int pawnSquare = (sideToMove == Color.WHITE) ? enPassantTarget + 8 : enPassantTarget - 8;
+      ChessPiece p = match.getBoard().piece(pawnSquare);
+      if (p == null || p.getType() != PieceType.PAWN || p.getColor() == sideToMove) {
+        throw invalid(fen, "no pawn can be captured en passant");
+      }
+      enPassantVulnerable = p;
+    }
+
+    try {
+      match.completeSetup(enPassantVulnerable, halfmoveClock);
+    }
+    catch (IllegalStateException e) {
+      throw invalid(fen, e.getMessage());
+    }
+    return match;
+  }
+
+  /**
+   * Creates a match from the FEN line at the position of a buffer of ASCII text, such as a
+   * memory-mapped file of positions, and moves the buffer past that line. The bytes are read
+   * in place.
+   * @param buffer the text; the line ends at a line feed or at the limit of the buffer.
+   * @return A new match set up in that position.
+   * @throws ChessException if the line is not a valid FEN position.
+   */
+  public static ChessMatch parse(ByteBuffer buffer) {
+    int start = buffer.position();
+    int end = start;
+    int limit = buffer.limit();
+    while (end < limit && buffer.get(end) != '\n') {
+      end++;
+    }
+    buffer.position((end < limit) ? end + 1 : end);
+    if (end > start && buffer.get(end - 1) == '\r') {
+      end--;
+    }
+    return parse(new AsciiSequence(buffer, start, end));
+  }
+
+  /**
+   * Writes the position of a match.
+   * @param match The match.
+   * @return The FEN text of its current position.
+   */
+  public static String format(ChessMatch match) {
+    ChessBoard board = match.getBoard();
+    StringBuilder sb = new StringBuilder(90);
+    for (int row = 0; row < 8; row++) {
+      int empty = 0;
+      for (int column = 0; column < 8; column++) {
+        ChessPiece p = board.piece(ChessBoard.square(row, column));
+        if (p == null) {
+          empty++;
+          continue;
+        }
+        if (empty > 0) {
+          sb.append((char)('0' + empty));
+          empty = 0;
+        }
+        char c = "pnbrqk".charAt(p.getType().ordinal());
+        sb.append(p.getColor() == Color.WHITE ? Character.toUpperCase(c) : c);
+      }
+      if (empty > 0) {
+        sb.append((char)('0' + empty));
+      }
+      if (row < 7) {
+        sb.append('/');
+      }
+    }
+
+    Color side = match.sideToMove();
+    sb.append(side == Color.WHITE ? " w " : " b ");
+    int rights = match.getCastlingRights();
+    if (rights == 0) {
+      sb.append('-');
+    }
+    else {
+      if ((rights & Zobrist.WHITE_KINGSIDE) != 0) {
+        sb.append('K');
+      }
+      if ((rights & Zobrist.WHITE_QUEENSIDE) != 0) {
+        sb.append('Q');
+      }
+      if ((rights & Zobrist.BLACK_KINGSIDE) != 0) {
+        sb.append('k');
+      }
+      if ((rights & Zobrist.BLACK_QUEENSIDE) != 0) {
+        sb.append('q');
+      }
+    }
+
+    ChessPiece enPassant = match.getEnPassantVulnerable();
+    if (enPassant == null) {
+      sb.append(" -");
+    }
+    else {
+      // The target square is the one the pawn jumped over
+      int square = enPassant.getSquare();
+      sb.append(' ').append(Move.squareName((enPassant.getColor() == Color.WHITE) ? square + 8 : square - 8));
+    }
+
+    int turn = (side == match.getCurrentPlayer()) ? match.getTurn() : match.getTurn() + 1;
+    sb.append(' ').append(match.getHalfmoveClock()).append(' ').append((turn + 1) / 2);
+    return sb.toString();
+  }
+
+  /**
+   * Places the pieces of the placement field and sets their move counts from the castling rights.
+   */
+  private static void placePieces(ChessMatch match, CharSequence fen, int start, int end, int rights) {
+    int row = 0;
+    int column = 0;
+    int[] kings = new int[Color.values().length];
+    for (int i = start; i < end; i++) {
+      char c = fen.charAt(i);
+      if (c == '/') {
+        if (column != 8) {
+          throw invalid(fen, "rank " + (8 - row) + " does not have 8 squares");
+        }
+        row++;
+        column = 0;
+      }
+      else if (c >= '1' && c <= '8') {
+        column += c - '0';
+      }
+      else {
+        PieceType type = pieceType(Character.toLowerCase(c));
+        if (type == null) {
+          throw invalid(fen, "unknown piece '" + c + "'");
+        }
+        if (row > 7 || column > 7) {
+          throw invalid(fen, "too many squares");
+        }
+        if (type == PieceType.PAWN && (row == 0 || row == 7)) {
+          throw invalid(fen, "pawn on rank " + (8 - row));
+        }
+        Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+        if (type == PieceType.KING && ++kings[color.ordinal()] > 1) {
+          throw invalid(fen, "more than one " + color + " king");
+        }
+        ChessPiece piece = match.newPiece(type, color);
+        int square = ChessBoard.square(row, column);
+        if (hasMoved(type, color, square, rights)) {
+          piece.increaseMoveCount();
+        }
+        match.placeNewPiece(square, piece);
+        column++;
+      }
+      if (column > 8) {
+        throw invalid(fen, "rank " + (8 - row) + " has more than 8 squares");
+      }
+    }
+    if (row != 7 || column != 8) {
+      throw invalid(fen, "placement must describe 8 ranks of 8 squares");
+    }
+  }
+
+  /**
+   * Decides whether a piece must be marked as moved: kings and rooks without castling rights,
+   * and pawns away from their starting rank.
+   */
+  static boolean hasMoved(PieceType type, Color color, int square, int rights) {
+    int kingside = (color == Color.WHITE) ? Zobrist.WHITE_KINGSIDE : Zobrist.BLACK_KINGSIDE;
+    int queenside = (color == Color.WHITE) ? Zobrist.WHITE_QUEENSIDE : Zobrist.BLACK_QUEENSIDE;
+    int homeRow = (color == Color.WHITE) ? 7 : 0;
+    switch (type) {
+      case KING:
+        return square != ChessBoard.square(homeRow, 4) || (rights & (kingside | queenside)) == 0;
+      case ROOK:
+        if (square == ChessBoard.square(homeRow, 7)) {
+          return (rights & kingside) == 0;
+        }
+        if (square == ChessBoard.square(homeRow, 0)) {
+          return (rights & queenside) == 0;
+        }
+        return true;
+      case PAWN:
+        return (square >>> 3) != ((color == Color.WHITE) ? 6 : 1);
+      default:
+        return false;
+    }
+  }
+
+  private static PieceType pieceType(char c) {
+    switch (c) {
+      case 'p': return PieceType.PAWN;
+      case 'n': return PieceType.KNIGHT;
+      case 'b': return PieceType.BISHOP;
+      case 'r': return PieceType.ROOK;
+      case 'q': return PieceType.QUEEN;
+      case 'k': return PieceType.KING;
+      default: return null;
+    }
+  }
+
+  private static int fieldEnd(CharSequence fen, int i) {
+    while (i < fen.length() && fen.charAt(i) != ' ') {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Reads a decimal number of at most 9 digits.
+   */
+  private static int number(CharSequence fen, int start, int end, String error) {
+    if (end - start > 9) {
+      throw invalid(fen, error);
+    }
+    int n = 0;
+    for (int i = start; i < end; i++) {
+      char c = fen.charAt(i);
+      if (c < '0' || c > '9') {
+        throw invalid(fen, error);
+      }
+      n = n * 10 + (c - '0');
+    }
+    return n;
+  }
+
+  private static int skipSpaces(CharSequence fen, int i) {
+    while (i < fen.length() && fen.charAt(i) == ' ') {
+      i++;
+    }
+    return i;
+  }
+
+  private static ChessException invalid(CharSequence fen, String reason) {
+    return new ChessException("Invalid FEN '" + fen + "': " + reason);
+  }
+
+  /**
+   * A view of ASCII bytes as characters, so a buffer can be parsed without decoding it into a String.
+   */
+  private static final class AsciiSequence implements CharSequence {
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    AsciiSequence(ByteBuffer buffer, int start, int end) {
+      this.buffer = buffer;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char)(buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      return new AsciiSequence(buffer, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(length());
+      for (int i = start; i < end; i++) {
+        sb.append((char)(buffer.get(i) & 0xFF));
+      }
+      return sb.toString();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package chess;
+
+/**
+ * Helpers for moves packed into a single int.
+ *
+ * Bits 0-5 hold the source square, bits 6-11 the target square and bits 12-15 the
+ * flags, so every move fits in 16 bits. Squares follow the ChessBoard numbering
+ * (a8 = 0, h1 = 63). When the PROMOTION flag is set, the two lowest flag bits select
+ * the new piece: knight, bishop, rook or queen.
+ */
+public final class Move {
+
+  public static final int NONE = 0; // a8 to a8, never a valid move
+
+  public static final int QUIET = 0;
+  public static final int DOUBLE_PAWN_PUSH = 1;
+  public static final int KING_CASTLE = 2;
+  public static final int QUEEN_CASTLE = 3;
+  public static final int CAPTURE = 4;
+  public static final int EN_PASSANT = 5;
+  public static final int PROMOTION = 8;
+
+  private static final PieceType[] PROMOTION_TYPES = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+  private Move() {
+  }
+
+  /**
+   * Packs a move into an int.
+   * @param from The source square.
+   * @param to The target square.
+   * @param flags The move flags.
+   * @return The encoded move.
+   */
+  public static int encode(int from, int to, int flags) {
+    return from | (to << 6) | (flags << 12);
+  }
+
+  /**
+   * Gets the source square of a move.
+   * @param move The encoded move.
+   * @return The source square.
+   */
+  public static int from(int move) {
+    return move & 0x3F;
+  }
+
+  /**
+   * Gets the target square of a move.
+   * @param move The encoded move.
+   * @return The target square.
+   */
+  public static int to(int move) {
+    return (move >>> 6) & 0x3F;
+  }
+
+  /**
+   * Gets the flags of a move.
+   * @param move The encoded move.
+   * @return The flags, from 0 to 15.
+   */
+  public static int flags(int move) {
+    return (move >>> 12) & 0xF;
+  }
+
+  /**
+   * Checks if a move captures a piece, en passant included.
+   * @param move The encoded move.
+   * @return True if the move is a capture, false otherwise.
+   */
+  public static boolean isCapture(int move) {
+    return (flags(move) & CAPTURE) != 0;
+  }
+
+  /**
+   * Checks if a move promotes a pawn.
+   * @param move The encoded move.
+   * @return True if the move is a promotion, false otherwise.
+   */
+  public static boolean isPromotion(int move) {
+    return (flags(move) & PROMOTION) != 0;
+  }
+
+  /**
+   * Gets the type of the piece a pawn is promoted to.
+   * @param move The encoded move.
+   * @return The promotion type, or null if the move is not a promotion.
+   */
+  public static PieceType promotion(int move) {
+    return isPromotion(move) ? PROMOTION_TYPES[flags(move) & 3] : null;
+  }
+
+  /**
+   * Gets the promotion flags for a piece type.
+   * @param type The type of the new piece: knight, bishop, rook or queen.
+   * @return The flags to combine with PROMOTION and, optionally, CAPTURE.
+   */
+  public static int promotionFlags(PieceType type) {
+    return PROMOTION | (type.ordinal() - PieceType.KNIGHT.ordinal());
+  }
+
+  /**
+   * Generates a string representation of a move in coordinate notation.
+   * @param move The encoded move.
+   * @return A string such as "e2e4" or "e7e8q".
+   */
+  public static String toString(int move) {
+    String s = squareName(from(move)) + squareName(to(move));
+    PieceType promotion = promotion(move);
+    if (promotion != null) {
+      s += "nbrq".charAt(promotion.ordinal() - PieceType.KNIGHT.ordinal());
+    }
+    return s;
+  }
+
+  /**
+   * Gets the source square of a move as a ChessPosition, for ChessMatch.performChessMove.
+   * @param move The encoded move.
+   * @return The source position.
+   */
+  public static ChessPosition source(int move) {
+    return position(from(move));
+  }
+
+  /**
+   * Gets the target square of a move as a ChessPosition, for ChessMatch.performChessMove.
+   * @param move The encoded move.
+   * @return The target position.
+   */
+  public static ChessPosition target(int move) {
+    return position(to(move));
+  }
+
+  private static ChessPosition position(int square) {
+    return new ChessPosition((char)('a' + (square & 7)), 8 - (square >>> 3));
+  }
+
+  /**
+   * Gets the algebraic name of a square.
+   * @param square The square index.
+   * @return A string such as "e4".
+   */
+  public static String squareName(int square) {
+    return "" + (char)('a' + (square & 7)) + (8 - (square >>> 3));
+  }
+}
@@ -0,0 +1,13 @@
+package chess;
+
+/**
+ * The kinds of chess pieces, used to index the bitboards of a ChessBoard.
+ */
+public enum PieceType {
+  PAWN,
+  KNIGHT,
+  BISHOP,
+  ROOK,
+  QUEEN,
+  KING;
+}
@@ -0,0 +1,152 @@
+package chess;
+
+/**
+ * An immutable, compact copy of a chess position.
+ *
+ * The 64 squares take four bits each, packed into four longs (a8 in the lowest bits of the
+ * first one): 0 for an empty square, otherwise 1 + the PieceType ordinal, plus 8 for a black
+ * piece. One more long holds the side to move (bit 0), the castling rights as Zobrist
+ * castling bits (1-4), the file of the pawn that may be captured "en passant" plus one, or 0
+ * (5-8), the halfmove clock (9-24) and the turn number (25-56).
+ *
+ * Snapshots compare and hash by value, so they can be used as map keys, stored, and handed
+ * between threads freely. Piece move counts are not kept: a match rebuilt from a snapshot
+ * marks pieces as moved the same way a FEN position does, which preserves every legal move.
+ */
+public final class PositionSnapshot {
+
+  private static final int BLACK_BIT = 8;
+
+  private final long squares0;
+  private final long squares1;
+  private final long squares2;
+  private final long squares3;
+  private final long state;
+
+  PositionSnapshot(long[] squares, Color sideToMove, int castlingRights, int enPassantFile, int halfmoveClock, int turn) {
+    this.squares0 = squares[0];
+    this.squares1 = squares[1];
+    this.squares2 = squares[2];
+    this.squares3 = squares[3];
+    this.state = (sideToMove == Color.WHITE ? 1L : 0L)
+        | ((long)(castlingRights & 0xF) << 1)
+        | ((long)(enPassantFile + 1) << 5)
+        | ((long)(halfmoveClock & 0xFFFF) << 9)
+        | ((turn & 0xFFFFFFFFL) << 25);
+  }
+
+  /**
+   * Packs a piece into the four-bit code used for each square.
+   * @param piece the piece, or null.
+   * @return the code, 0 for no piece.
+   */
+  static int code(ChessPiece piece) {
+    if (piece == null) {
+      return 0;
+    }
+    return (piece.getType().ordinal() + 1) | (piece.getColor() == Color.BLACK ? BLACK_BIT : 0);
+  }
+
+  private int code(int square) {
+    long word = (square < 16) ? squares0 : (square < 32) ? squares1 : (square < 48) ? squares2 : squares3;
+    return (int)(word >>> ((square & 15) * 4)) & 0xF;
+  }
+
+  /**
+   * Gets the type of the piece on a square.
+   * @param square the square, from 0 (a8) to 63 (h1).
+   * @return the type, or null if the square is empty.
+   */
+  public PieceType getType(int square) {
+    int code = code(square);
+    return (code == 0) ? null : PieceType.values()[(code & 7) - 1];
+  }
+
+  /**
+   * Gets the color of the piece on a square.
+   * @param square the square, from 0 (a8) to 63 (h1).
+   * @return the color, or null if the square is empty.
+   */
+  public Color getColor(int square) {
+    int code = code(square);
+    return (code == 0) ? null : ((code & BLACK_BIT) != 0) ? Color.BLACK : Color.WHITE;
+  }
+
+  public Color getSideToMove() {
+    return ((state & 1) != 0) ? Color.WHITE : Color.BLACK;
+  }
+
+  /**
+   * Gets the castling rights.
+   * @return a combination of Zobrist.WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE.
+   */
+  public int getCastlingRights() {
+    return (int)(state >>> 1) & 0xF;
+  }
+
+  /**
+   * Gets the square of the pawn that may be captured "en passant".
+   * @return the square, or -1 if the last move was not a double pawn push.
+   */
+  public int getEnPassantPawn() {
+    int file = (int)(state >>> 5) & 0xF;
+    if (file == 0) {
+      return -1;
+    }
+    return ChessBoard.square(getSideToMove() == Color.WHITE ? 3 : 4, file - 1);
+  }
+
+  /**
+   * Gets the number of half moves since the last capture or pawn move.
+   * @return the halfmove clock.
+   */
+  public int getHalfmoveClock() {
+    return (int)(state >>> 9) & 0xFFFF;
+  }
+
+  public int getTurn() {
+    return (int)(state >>> 25);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PositionSnapshot)) {
+      return false;
+    }
+    PositionSnapshot other = (PositionSnapshot)o;
+    return squares0 == other.squares0 && squares1 == other.squares1 && squares2 == other.squares2
+        && squares3 == other.squares3 && state == other.state;
+  }
+
+  @Override
+  public int hashCode() {
+    long h = squares0;
+    h = h * 31 + squares1;
+    h = h * 31 + squares2;
+    h = h * 31 + squares3;
+    h = h * 31 + state;
+    return (int)(h ^ (h >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int square = 0; square < 64; square++) {
+      PieceType type = getType(square);
+      if (type == null) {
+        sb.append('.');
+      }
+      else {
+        char c = "pnbrqk".charAt(type.ordinal());
+        sb.append(getColor(square) == Color.WHITE ? Character.toUpperCase(c) : c);
+      }
+      if ((square & 7) == 7 && square != 63) {
+        sb.append('/');
+      }
+    }
+    return sb.append(' ').append(getSideToMove() == Color.WHITE ? 'w' : 'b').toString();
+  }
+}
@@ -0,0 +1,81 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys used to hash chess positions.
+ *
+ * The key of a position is the XOR of one key per piece on its square, plus keys for the
+ * side to move, the castling rights and the file of a pawn that can be captured en passant.
+ * Since XOR is its own inverse, moving a piece updates the hash with two XORs.
+ */
+public final class Zobrist {
+
+  public static final int WHITE_KINGSIDE = 1;
+  public static final int WHITE_QUEENSIDE = 2;
+  public static final int BLACK_KINGSIDE = 4;
+  public static final int BLACK_QUEENSIDE = 8;
+
+  private static final long[][] PIECES = new long[Color.values().length * PieceType.values().length][64];
+  private static final long[] CASTLING = new long[16];
+  private static final long[] EN_PASSANT = new long[8];
+  private static final long BLACK_TO_MOVE;
+
+  static {
+    SplittableRandom random = new SplittableRandom(0x5DEECE66DL); // Fixed seed, so keys are stable across runs
+    for (long[] keys : PIECES) {
+      for (int square = 0; square < 64; square++) {
+        keys[square] = random.nextLong();
+      }
+    }
+    for (int i = 0; i < CASTLING.length; i++) {
+      CASTLING[i] = random.nextLong();
+    }
+    CASTLING[0] = 0L; // No rights, no key: positions without castling hash only their pieces and side
+    for (int i = 0; i < EN_PASSANT.length; i++) {
+      EN_PASSANT[i] = random.nextLong();
+    }
+    BLACK_TO_MOVE = random.nextLong();
+  }
+
+  private Zobrist() {
+  }
+
+  /**
+   * Gets the key of a piece on a square.
+   * @param color The color of the piece.
+   * @param type The type of the piece.
+   * @param square The square of the piece.
+   * @return The key.
+   */
+  public static long piece(Color color, PieceType type, int square) {
+    return PIECES[color.ordinal() * 6 + type.ordinal()][square];
+  }
+
+  /**
+   * Gets the key of a set of castling rights.
+   * @param rights A combination of the WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE bits.
+   * @return The key, 0 when there are no rights.
+   */
+  public static long castling(int rights) {
+    return CASTLING[rights];
+  }
+
+  /**
+   * Gets the key of an "en passant" file.
+   * @param column The column of the pawn that can be captured, from 0 (a) to 7 (h).
+   * @return The key.
+   */
+  public static long enPassant(int column) {
+    return EN_PASSANT[column];
+  }
+
+  /**
+   * Gets the key of the side to move.
+   * @param color The side to move.
+   * @return The key, 0 when white is to move.
+   */
+  public static long side(Color color) {
+    return (color == Color.BLACK) ? BLACK_TO_MOVE : 0L;
+  }
+}
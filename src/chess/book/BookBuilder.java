@@ -0,0 +1,221 @@
+package chess.book;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.record.Result;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Compiles an opening book from finished games.
+ *
+ * Every move of the first plies of a game is counted for the position it was played in, and
+ * scores 2 for the side that played it when it won and 1 when the game was drawn, as in
+ * Polyglot. The counts live in an open-addressing table keyed by position and move, so a
+ * collection of millions of games needs memory only for its distinct opening moves.
+ */
+public class BookBuilder {
+
+  /** The default number of plies of each game that go into the book. */
+  public static final int DEFAULT_PLIES = 20;
+
+  private final int maxPlies;
+  private final int minGames;
+
+  private long[] keys = new long[1 << 16];
+  private int[] moves = new int[1 << 16]; // Move.NONE marks an empty slot
+  private int[] scores = new int[1 << 16];
+  private int[] games = new int[1 << 16];
+  private int used;
+  private long gamesAdded;
+
+  /**
+   * Creates a builder.
+   * @param maxPlies the number of plies of each game to add.
+   * @param minGames the number of games a move needs to be written to the book.
+   */
+  public BookBuilder(int maxPlies, int minGames) {
+    if (maxPlies < 1 || minGames < 1) {
+      throw new IllegalArgumentException("The ply limit and the game threshold must be positive");
+    }
+    this.maxPlies = maxPlies;
+    this.minGames = minGames;
+  }
+
+  /**
+   * Adds the opening of a game.
+   * @param start the match in the starting position of the game; it is played through.
+   * @param gameMoves the encoded moves of the game.
+   * @param count the number of moves.
+   * @param result the outcome of the game; unfinished games are ignored.
+   */
+  public void add(ChessMatch start, int[] gameMoves, int count, Result result) {
+    if (result == Result.UNFINISHED) {
+      return;
+    }
+    int plies = Math.min(count, maxPlies);
+    for (int i = 0; i < plies; i++) {
+      count(start.getZobristKey(), gameMoves[i], score(result, start.getCurrentPlayer()));
+      start.makeMove(gameMoves[i]);
+    }
+    gamesAdded++;
+  }
+
+  /**
+   * Adds the opening of a game from the move stack of a match that has played it, with the
+   * position keys the match recorded on the way.
+   * @param end the match after the plies to add.
+   * @param result the outcome of the game; unfinished games are ignored.
+   */
+  private void addPlayed(ChessMatch end, Result result) {
+    if (result == Result.UNFINISHED) {
+      return;
+    }
+    // Walks back from the side to move after the last ply; a checkmate leaves the turn with the winner
+    Color side = end.getCurrentPlayer();
+    if (end.getCheckMate()) {
+      side = opponent(side);
+    }
+    for (int i = Math.min(end.getPly(), maxPlies) - 1; i >= 0; i--) {
+      side = opponent(side);
+      count(end.getPositionKey(i), end.getMove(i), score(result, side));
+    }
+    gamesAdded++;
+  }
+
+  /**
+   * Adds the openings of every game of a PGN file. Games that cannot be replayed are skipped.
+   * @param path the file.
+   * @return the number of games added.
+   * @throws IOException if the file cannot be read.
+   */
+  public long addPgn(Path path) throws IOException {
+    long before = gamesAdded;
+    int[] buffer = new int[256];
+    try (PgnReader reader = new PgnReader(path)) {
+      long number = 0;
+      ByteBuffer text;
+      while ((text = reader.nextGame()) != null) {
+        number++;
+        try {
+          PgnGame game = PgnGame.parse(number, text);
+          ChessMatch end = game.replay(buffer, maxPlies); // Only the opening goes into the book
+          addPlayed(end, Result.fromNotation(String.valueOf(game.getTag("Result"))));
+        }
+        catch (ChessException e) {
+          // An illegal game teaches nothing about openings
+        }
+      }
+    }
+    return gamesAdded - before;
+  }
+
+  /**
+   * Gets the number of games added so far.
+   * @return the game count.
+   */
+  public long getGames() {
+    return gamesAdded;
+  }
+
+  /**
+   * Writes the book: the moves played in at least minGames games and scoring at least one point,
+   * sorted as OpeningBook expects. Weights above the 16 bits of an entry are scaled down together.
+   * @param path the book file to create.
+   * @return the number of entries written.
+   * @throws IOException if the file cannot be written.
+   */
+  public int write(Path path) throws IOException {
+    Integer[] slots = new Integer[used];
+    int n = 0;
+    int maxScore = 0;
+    for (int slot = 0; slot < moves.length; slot++) {
+      if (moves[slot] != 0 && games[slot] >= minGames && scores[slot] > 0) {
+        slots[n++] = slot;
+        maxScore = Math.max(maxScore, scores[slot]);
+      }
+    }
+    Arrays.sort(slots, 0, n, (a, b) -> {
+      int c = Long.compareUnsigned(keys[a], keys[b]);
+      if (c == 0) {
+        c = Integer.compare(scores[b], scores[a]);
+      }
+      return (c == 0) ? Integer.compare(moves[a], moves[b]) : c;
+    });
+
+    int divisor = (maxScore + 0xFFFF - 1) / 0xFFFF;
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+      for (int i = 0; i < n; i++) {
+        int slot = slots[i];
+        out.writeLong(keys[slot]);
+        out.writeShort(moves[slot]);
+        out.writeShort(Math.max(scores[slot] / Math.max(divisor, 1), 1));
+        out.writeInt(games[slot]);
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Scores a move as in Polyglot: 2 for the side that played it when it won, 1 for a draw.
+   */
+  private static int score(Result result, Color side) {
+    return (result == Result.DRAW) ? 1 : ((result == Result.WHITE_WINS) == (side == Color.WHITE)) ? 2 : 0;
+  }
+
+  private static Color opponent(Color color) {
+    return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+  }
+
+  private void count(long key, int move, int score) {
+    if (used * 2 >= moves.length) {
+      grow();
+    }
+    int slot = find(key, move, moves.length - 1);
+    if (moves[slot] == 0) {
+      keys[slot] = key;
+      moves[slot] = move;
+      used++;
+    }
+    scores[slot] += score;
+    games[slot]++;
+  }
+
+  private int find(long key, int move, int mask) {
+    long hash = key ^ (move * 0x9E3779B97F4A7C15L);
+    int slot = (int)(hash ^ (hash >>> 32)) & mask;
+    while (moves[slot] != 0 && (keys[slot] != key || moves[slot] != move)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldMoves = moves;
+    int[] oldScores = scores;
+    int[] oldGames = games;
+    keys = new long[oldKeys.length * 2];
+    moves = new int[oldMoves.length * 2];
+    scores = new int[oldScores.length * 2];
+    games = new int[oldGames.length * 2];
+    for (int i = 0; i < oldMoves.length; i++) {
+      if (oldMoves[i] != 0) {
+        int slot = find(oldKeys[i], oldMoves[i], moves.length - 1);
+        keys[slot] = oldKeys[i];
+        moves[slot] = oldMoves[i];
+        scores[slot] = oldScores[i];
+        games[slot] = oldGames[i];
+      }
+    }
+  }
+}
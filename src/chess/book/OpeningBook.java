@@ -0,0 +1,163 @@
+package chess.book;
+
+import chess.ChessMatch;
+import chess.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * An opening book: the moves played from known positions, with a weight for each.
+ *
+ * The file follows the Polyglot layout: a sequence of 16-byte big-endian entries, each holding
+ * the position key (8 bytes), the encoded move (2 bytes), its weight (2 bytes, unsigned) and
+ * the number of games that played it (4 bytes), sorted by unsigned key and, for each key, by
+ * decreasing weight. Keys are ChessMatch.getZobristKey() values and moves use the Move
+ * encoding, so the files are not interchangeable with Polyglot books.
+ *
+ * The file is memory-mapped and looked up with a binary search, so opening a book reads
+ * nothing and a lookup touches a few pages. A book may be probed by many threads at once.
+ */
+public class OpeningBook implements Closeable {
+
+  /** The size of an entry in bytes. */
+  public static final int ENTRY_BYTES = 16;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer entries;
+  private final int size;
+
+  /**
+   * Opens a book file.
+   * @param path the file.
+   * @throws IOException if the file cannot be read or is not a sequence of entries.
+   */
+  public OpeningBook(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    long length = channel.size();
+    if (length % ENTRY_BYTES != 0 || length / ENTRY_BYTES > Integer.MAX_VALUE / ENTRY_BYTES) {
+      channel.close();
+      throw new IOException("Not an opening book: " + path);
+    }
+    entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+    size = (int)(length / ENTRY_BYTES);
+  }
+
+  /**
+   * Gets the number of entries of the book.
+   * @return the entry count.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the book moves of the current position. Entries that are not legal in the position,
+   * which can only come from a key collision, are skipped.
+   * @param match the match.
+   * @param moves receives the moves, by decreasing weight.
+   * @param weights receives the weight of each move.
+   * @return the number of moves found, at most the length of the arrays.
+   */
+  public int probe(ChessMatch match, int[] moves, int[] weights) {
+    long key = match.getZobristKey();
+    int[] legal = null;
+    int legalCount = 0;
+    int count = 0;
+    for (int i = lowerBound(key); i < size && key(i) == key && count < moves.length; i++) {
+      int move = entries.getShort(i * ENTRY_BYTES + 8) & 0xFFFF;
+      if (legal == null) {
+        legal = new int[256];
+        legalCount = match.getCheckMate() ? 0 : match.legalMoves(legal);
+      }
+      if (contains(legal, legalCount, move)) {
+        moves[count] = move;
+        weights[count] = entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF;
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Picks a book move at random, each move with a probability proportional to its weight.
+   * @param match the match.
+   * @param random the source of randomness.
+   * @return the encoded move, or Move.NONE if the position is not in the book.
+   */
+  public int choose(ChessMatch match, Random random) {
+    int[] moves = new int[64];
+    int[] weights = new int[64];
+    int n = probe(match, moves, weights);
+    long total = 0;
+    for (int i = 0; i < n; i++) {
+      total += weights[i];
+    }
+    if (total == 0) {
+      return Move.NONE;
+    }
+    long pick = (long)(random.nextDouble() * total);
+    for (int i = 0; i < n; i++) {
+      pick -= weights[i];
+      if (pick < 0) {
+        return moves[i];
+      }
+    }
+    return moves[n - 1];
+  }
+
+  /**
+   * Gets the book move with the highest weight.
+   * @param match the match.
+   * @return the encoded move, or Move.NONE if the position is not in the book.
+   */
+  public int best(ChessMatch match) {
+    int[] moves = new int[1];
+    int[] weights = new int[1];
+    return (probe(match, moves, weights) > 0 && weights[0] > 0) ? moves[0] : Move.NONE;
+  }
+
+  /**
+   * Closes the file. The mapping itself is released when the book is garbage collected.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private long key(int index) {
+    return entries.getLong(index * ENTRY_BYTES);
+  }
+
+  /**
+   * Finds the first entry whose key is not below the given one, in unsigned order.
+   */
+  private int lowerBound(long key) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (Long.compareUnsigned(key(middle), key) < 0) {
+        low = middle + 1;
+      }
+      else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static boolean contains(int[] moves, int count, int move) {
+    for (int i = 0; i < count; i++) {
+      if (moves[i] == move) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,9 +1,10 @@
 package chess.chessPieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 /**
  * Represents a bishop chess piece.
@@ -19,6 +20,15 @@ public class Bishop extends ChessPiece {
     super(board, color);
   }
 
+  /**
+   * Gets the type of the bishop.
+   * @return PieceType.BISHOP.
+   */
+  @Override
+  public PieceType getType() {
+    return PieceType.BISHOP;
+  }
+
   /**
    * Generates a string representation of the Bishop.
    * @return The string "B" representing the Bishop.
@@ -29,55 +39,11 @@ public class Bishop extends ChessPiece {
   }
 
   /**
-   * Generates a matrix of possible moves for the bishop.
-   * @return A boolean matrix indicating the possible moves for the bishop.
+   * Gets the squares the bishop can move to, looked up in the precomputed attack tables.
+   * @return A bitboard with one bit set per target square.
    */
   @Override
-  public boolean[][] possibleMoves() {
-    boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-    Position p = new Position(0, 0);
-
-    // Northwest
-    p.setValues(position.getRow() - 1, position.getColumn() - 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() - 1, p.getColumn() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    // Northeast
-    p.setValues(position.getRow() - 1, position.getColumn() + 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() - 1, p.getColumn() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // Southeast
-    p.setValues(position.getRow() + 1, position.getColumn() + 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() + 1, p.getColumn() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    // Southwest
-    p.setValues(position.getRow() + 1, position.getColumn() - 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() + 1, p.getColumn() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    return mat;
+  public long possibleTargets() {
+    return Attacks.bishop(getSquare(), getChessBoard().occupancy()) & ~getChessBoard().pieces(getColor());
   }
-}
\ No newline at end of file
+}
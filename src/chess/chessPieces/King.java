@@ -1,10 +1,12 @@
 package chess.chessPieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
 
 public class King extends ChessPiece{
 
@@ -21,6 +23,15 @@ public class King extends ChessPiece{
     this.chessMatch = chessMatch;
   }
 
+  /**
+   * Gets the type of the king.
+   * @return PieceType.KING.
+   */
+  @Override
+  public PieceType getType() {
+    return PieceType.KING;
+  }
+
   /**
    * Generates a string representation of the King.
    * @return The string "K" representing the King.
@@ -32,97 +43,68 @@ public class King extends ChessPiece{
 
   /**
    * Tests if a rook is eligible for castling.
-   * @param position The position of the rook.
+   * @param square The square of the rook.
    * @return True if the rook is eligible for castling, false otherwise.
    */
-  private boolean testRookCastling(Position position) {
-    ChessPiece p = (ChessPiece)getBoard().piece(position);
+  private boolean testRookCastling(int square) {
+    ChessPiece p = getChessBoard().piece(square);
     return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
   }
 
   /**
-   * Checks if a position is valid for the king to move to.
-   * @param position The position to check.
-   * @return True if the position is valid for the king to move to, false otherwise.
-   */
-  private boolean canMove(Position position) {
-    ChessPiece p = (ChessPiece)getBoard().piece(position);
-    return p == null || p.getColor() != getColor();
-  }
-
-  /**
-   * Generates a matrix of possible moves for the king.
-   * @return A boolean matrix indicating the possible moves for the king.
+   * Gets the squares the king can move to, castling included.
+   * Regular steps come from the precomputed attack tables.
+   * @return A bitboard with one bit set per target square.
    */
   @Override
-  public boolean[][] possibleMoves() {
-    boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+  public long possibleTargets() {
+    int square = getSquare();
+    long occupancy = getChessBoard().occupancy();
+    long targets = Attacks.king(square) & ~getChessBoard().pieces(getColor());
 
-    Position p = new Position(0, 0);
-
-    // Up
-    p.setValues(position.getRow() - 1, position.getColumn());
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    // Down
-    p.setValues(position.getRow() + 1, position.getColumn());
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    // Left
-    p.setValues(position.getRow(), position.getColumn() - 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    // Right
-    p.setValues(position.getRow(), position.getColumn() + 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    // Northwest
-    p.setValues(position.getRow() - 1, position.getColumn() - 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    // Northeast
-    p.setValues(position.getRow() - 1, position.getColumn() + 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    // Southwest
-    p.setValues(position.getRow() + 1, position.getColumn() - 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    // Southeast
-    p.setValues(position.getRow() + 1, position.getColumn() + 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
     // Special move castling
     if (getMoveCount() == 0 && !chessMatch.getCheck()) {
+      int column = square & 7;
       // Castling kingside rook
-      Position posT1 = new Position(position.getRow(), position.getColumn() + 3);
-      if (testRookCastling(posT1)) {
-        Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-        Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-        if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-          mat[position.getRow()][position.getColumn() + 2] = true;
-        }
+      if (column + 3 < 8 && testRookCastling(square + 3) && (occupancy & (3L << (square + 1))) == 0) {
+        targets |= 1L << (square + 2);
       }
       // Castling queenside rook
-      Position posT2 = new Position(position.getRow(), position.getColumn() - 4);
-      if (testRookCastling(posT2)) {
-        Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-        Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-        Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-        if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-          mat[position.getRow()][position.getColumn() - 2] = true;
-        }
+      if (column - 4 >= 0 && testRookCastling(square - 4) && (occupancy & (7L << (square - 3))) == 0) {
+        targets |= 1L << (square - 2);
       }
     }
-    return mat;
+    return targets;
   }
-}
 
+  /**
+   * Writes the possible moves of the king whose target square is in a mask into a caller-supplied buffer,
+   * flagging castling moves.
+   * @param moves The buffer receiving the moves.
+   * @param count The number of moves already in the buffer.
+   * @param mask The allowed target squares.
+   * @return The number of moves in the buffer after the new ones were added.
+   */
+  @Override
+  public int generateMoves(int[] moves, int count, long mask) {
+    int from = getSquare();
+    long occupancy = getChessBoard().occupancy();
+    long targets = possibleTargets() & mask;
+    while (targets != 0) {
+      int to = Long.numberOfTrailingZeros(targets);
+      int flags;
+      if (to == from + 2) {
+        flags = Move.KING_CASTLE;
+      }
+      else if (to == from - 2) {
+        flags = Move.QUEEN_CASTLE;
+      }
+      else {
+        flags = (occupancy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET;
+      }
+      moves[count++] = Move.encode(from, to, flags);
+      targets &= targets - 1;
+    }
+    return count;
+  }
+}
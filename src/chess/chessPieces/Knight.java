@@ -1,9 +1,10 @@
 package chess.chessPieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Knight extends ChessPiece{
 
@@ -17,73 +18,29 @@ public class Knight extends ChessPiece{
   }
 
   /**
-   * Generates a string representation of the Knight.
-   * @return The string "N" representing the Knight.
+   * Gets the type of the knight.
+   * @return PieceType.KNIGHT.
    */
   @Override
-  public String toString() {
-    return "N";
+  public PieceType getType() {
+    return PieceType.KNIGHT;
   }
 
   /**
-   * Checks if a position is valid for the knight to move to.
-   * @param position The position to check.
-   * @return True if the position is valid for the knight to move to, false otherwise.
+   * Generates a string representation of the Knight.
+   * @return The string "N" representing the Knight.
    */
-  private boolean canMove(Position position) {
-    ChessPiece p = (ChessPiece)getBoard().piece(position);
-    return p == null || p.getColor() != getColor();
+  @Override
+  public String toString() {
+    return "N";
   }
 
   /**
-   * Generates a matrix of possible moves for the knight.
-   * @return A boolean matrix indicating the possible moves for the knight.
+   * Gets the squares the knight can move to, looked up in the precomputed attack tables.
+   * @return A bitboard with one bit set per target square.
    */
   @Override
-  public boolean[][] possibleMoves() {
-    boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-    Position p = new Position(0, 0);
-
-    p.setValues(position.getRow() - 1, position.getColumn() - 2);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    p.setValues(position.getRow() - 2, position.getColumn() - 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    p.setValues(position.getRow() - 2, position.getColumn() + 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    p.setValues(position.getRow() - 1, position.getColumn() + 2);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    p.setValues(position.getRow() + 1, position.getColumn() + 2);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-   
-    p.setValues(position.getRow() + 2, position.getColumn() + 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    p.setValues(position.getRow() + 2, position.getColumn() - 1);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    p.setValues(position.getRow() + 1, position.getColumn() - 2);
-    if (getBoard().positionExists(p) && canMove(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    return mat;
+  public long possibleTargets() {
+    return Attacks.knight(getSquare()) & ~getChessBoard().pieces(getColor());
   }
 }
@@ -1,10 +1,13 @@
 package chess.chessPieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece{
   private ChessMatch chessMatch;
@@ -21,85 +24,88 @@ public class Pawn extends ChessPiece{
   }
   
   /**
-   * Generates a matrix of possible moves for the pawn.
-   * @return A boolean matrix indicating the possible moves for the pawn.
+   * Gets the squares the pawn can move to: pushes, captures and "en passant".
+   * @return A bitboard with one bit set per target square.
    */
   @Override
-  public boolean[][] possibleMoves() {
-    boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-    Position p = new Position(0, 0);
+  public long possibleTargets() {
+    ChessBoard board = getChessBoard();
+    int square = getSquare();
+    int row = square >>> 3;
+    int column = square & 7;
+    long occupancy = board.occupancy();
+    int forward = (getColor() == Color.WHITE) ? -8 : 8;
+    int startRow = (getColor() == Color.WHITE) ? 6 : 1;
+    int enPassantRow = (getColor() == Color.WHITE) ? 3 : 4;
+    long targets = 0L;
 
-    if (getColor() == Color.WHITE) {
-      p.setValues(position.getRow() - 1, position.getColumn());
-      if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-        mat[p.getRow()][p.getColumn()] = true;
+    int ahead = square + forward;
+    if (ahead >= 0 && ahead < 64 && (occupancy & (1L << ahead)) == 0) {
+      targets |= 1L << ahead;
+      if (row == startRow && (occupancy & (1L << (ahead + forward))) == 0) {
+        targets |= 1L << (ahead + forward);
       }
-      
-      p.setValues(position.getRow() - 2, position.getColumn());
-      Position p2 = new Position(position.getRow() - 1, position.getColumn());
-      if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-        mat[p.getRow()][p.getColumn()] = true;
-      }
-
-      p.setValues(position.getRow() - 1, position.getColumn() - 1);
-      if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-        mat[p.getRow()][p.getColumn()] = true;
-      } 
+    }
 
-      p.setValues(position.getRow() - 1, position.getColumn() + 1);
-      if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-        mat[p.getRow()][p.getColumn()] = true;
-      } 
+    targets |= Attacks.pawn(getColor(), square) & board.pieces(getColor() == Color.WHITE ? Color.BLACK : Color.WHITE);
 
-      // #specialmove en passant white
-			if (position.getRow() == 3) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(left) && isTheOppenentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() - 1][left.getColumn()] = true;
-				}
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(right) && isTheOppenentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() - 1][right.getColumn()] = true;
-				}
-			}
-    }
-    else {
-      p.setValues(position.getRow() + 1, position.getColumn());
-      if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-        mat[p.getRow()][p.getColumn()] = true;
+    // #specialmove en passant
+    ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+    if (row == enPassantRow && vulnerable != null && vulnerable.getColor() != getColor()) {
+      if (column > 0 && board.piece(square - 1) == vulnerable) {
+        targets |= 1L << (square - 1 + forward);
       }
-      
-      p.setValues(position.getRow() + 2, position.getColumn());
-      Position p2 = new Position(position.getRow() + 1, position.getColumn());
-      if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-        mat[p.getRow()][p.getColumn()] = true;
+      if (column < 7 && board.piece(square + 1) == vulnerable) {
+        targets |= 1L << (square + 1 + forward);
       }
+    }
+    return targets;
+  }
 
-      p.setValues(position.getRow() + 1, position.getColumn() - 1);
-      if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-        mat[p.getRow()][p.getColumn()] = true;
-      } 
-
-      p.setValues(position.getRow() + 1, position.getColumn() + 1);
-      if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-        mat[p.getRow()][p.getColumn()] = true;
+  /**
+   * Writes the possible moves of the pawn whose target square is in a mask into a caller-supplied buffer,
+   * flagging double pushes, "en passant" captures and one move per promotion piece.
+   * @param moves The buffer receiving the moves.
+   * @param count The number of moves already in the buffer.
+   * @param mask The allowed target squares.
+   * @return The number of moves in the buffer after the new ones were added.
+   */
+  @Override
+  public int generateMoves(int[] moves, int count, long mask) {
+    int from = getSquare();
+    long occupancy = getChessBoard().occupancy();
+    long targets = possibleTargets() & mask;
+    while (targets != 0) {
+      int to = Long.numberOfTrailingZeros(targets);
+      int flags = (occupancy & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET;
+      if (to < 8 || to >= 56) {
+        for (int promotion = 3; promotion >= 0; promotion--) {
+          moves[count++] = Move.encode(from, to, flags | Move.PROMOTION | promotion);
+        }
       }
-
-      // #specialmove en passant black
-			if (position.getRow() == 4) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(left) && isTheOppenentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() + 1][left.getColumn()] = true;
-				}
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(right) && isTheOppenentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() + 1][right.getColumn()] = true;
-				}
-			}
+      else {
+        if ((from & 7) != (to & 7) && flags == Move.QUIET) {
+          flags = Move.EN_PASSANT;
+        }
+        else if (to == from + 16 || to == from - 16) {
+          flags = Move.DOUBLE_PAWN_PUSH;
+        }
+        moves[count++] = Move.encode(from, to, flags);
+      }
+      targets &= targets - 1;
     }
-    return mat;
+    return count;
   }
-  
+
+  /**
+   * Gets the type of the pawn.
+   * @return PieceType.PAWN.
+   */
+  @Override
+  public PieceType getType() {
+    return PieceType.PAWN;
+  }
+
   /**
    * Generates a string representation of the Pawn.
    * @return The string "P" representing the Pawn.
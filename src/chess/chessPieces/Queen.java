@@ -1,9 +1,10 @@
 package chess.chessPieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Queen extends ChessPiece {
   
@@ -16,6 +17,15 @@ public class Queen extends ChessPiece {
     super(board, color);
   }
 
+  /**
+   * Gets the type of the queen.
+   * @return PieceType.QUEEN.
+   */
+  @Override
+  public PieceType getType() {
+    return PieceType.QUEEN;
+  }
+
   /**
    * Generates a string representation of the Queen.
    * @return The string "Q" representing the Queen.
@@ -26,94 +36,11 @@ public class Queen extends ChessPiece {
   }
 
   /**
-   * Generates a matrix of possible moves for the queen.
-   * @return A boolean matrix indicating the possible moves for the queen.
+   * Gets the squares the queen can move to, looked up in the precomputed attack tables.
+   * @return A bitboard with one bit set per target square.
    */
   @Override
-  public boolean[][] possibleMoves() {
-    boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-    Position p = new Position(0, 0);
-
-    // Up
-    p.setValues(position.getRow() - 1, position.getColumn());
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setRow(p.getRow() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // Left
-    p.setValues(position.getRow(), position.getColumn() - 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setColumn(p.getColumn() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // Right
-    p.setValues(position.getRow(), position.getColumn() + 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setColumn(p.getColumn() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // Down
-    p.setValues(position.getRow() + 1, position.getColumn());
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setRow(p.getRow() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // nw
-    p.setValues(position.getRow() - 1, position.getColumn() - 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() - 1, p.getColumn() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // ne
-    p.setValues(position.getRow() - 1, position.getColumn() + 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() - 1, p.getColumn() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // se
-    p.setValues(position.getRow() + 1, position.getColumn() + 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() + 1, p.getColumn() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // sw
-    p.setValues(position.getRow() + 1, position.getColumn() - 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setValues(p.getRow() + 1, p.getColumn() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    return mat;
+  public long possibleTargets() {
+    return Attacks.queen(getSquare(), getChessBoard().occupancy()) & ~getChessBoard().pieces(getColor());
   }
 }
@@ -1,9 +1,10 @@
 package chess.chessPieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Rook extends ChessPiece {
   
@@ -16,6 +17,15 @@ public class Rook extends ChessPiece {
     super(board, color);
   }
 
+  /**
+   * Gets the type of the rook.
+   * @return PieceType.ROOK.
+   */
+  @Override
+  public PieceType getType() {
+    return PieceType.ROOK;
+  }
+
   /**
    * Generates a string representation of the Rook.
    * @return The string "R" representing the Rook.
@@ -26,55 +36,11 @@ public class Rook extends ChessPiece {
   }
 
   /**
-   * Generates a matrix of possible moves for the rook.
-   * @return A boolean matrix indicating the possible moves for the rook.
+   * Gets the squares the rook can move to, looked up in the precomputed attack tables.
+   * @return A bitboard with one bit set per target square.
    */
   @Override
-  public boolean[][] possibleMoves() {
-    boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-    Position p = new Position(0, 0);
-
-    // Up
-    p.setValues(position.getRow() - 1, position.getColumn());
-    // Move upwards until there is a piece
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setRow(p.getRow() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // Left
-    p.setValues(position.getRow(), position.getColumn() - 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setColumn(p.getColumn() - 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // Right
-    p.setValues(position.getRow(), position.getColumn() + 1);
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setColumn(p.getColumn() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-
-    // Down
-    p.setValues(position.getRow() + 1, position.getColumn());
-    while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-      p.setRow(p.getRow() + 1);
-    }
-    if (getBoard().positionExists(p) && isTheOppenentPiece(p)) {
-      mat[p.getRow()][p.getColumn()] = true;
-    }
-    
-    return mat;
+  public long possibleTargets() {
+    return Attacks.rook(getSquare(), getChessBoard().occupancy()) & ~getChessBoard().pieces(getColor());
   }
 }
@@ -0,0 +1,155 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceType;
+
+/**
+ * Static evaluation of a position: material plus piece-square tables.
+ *
+ * The tables are written as seen by White, from a8 to h1, which is also the square numbering
+ * of the board, so a white piece reads its table at its own square and a black piece at the
+ * square mirrored vertically. The king switches to its endgame table once the queens are gone
+ * or little material is left.
+ */
+public final class Evaluator {
+
+  /** Material values in centipawns, indexed by PieceType ordinal. */
+  public static final int[] VALUES = {100, 320, 330, 500, 900, 0};
+
+  private static final int[][] TABLES = {
+    { // Pawn
+       0,  0,  0,  0,  0,  0,  0,  0,
+      50, 50, 50, 50, 50, 50, 50, 50,
+      10, 10, 20, 30, 30, 20, 10, 10,
+       5,  5, 10, 25, 25, 10,  5,  5,
+       0,  0,  0, 20, 20,  0,  0,  0,
+       5, -5,-10,  0,  0,-10, -5,  5,
+       5, 10, 10,-20,-20, 10, 10,  5,
+       0,  0,  0,  0,  0,  0,  0,  0
+    },
+    { // Knight
+     -50,-40,-30,-30,-30,-30,-40,-50,
+     -40,-20,  0,  0,  0,  0,-20,-40,
+     -30,  0, 10, 15, 15, 10,  0,-30,
+     -30,  5, 15, 20, 20, 15,  5,-30,
+     -30,  0, 15, 20, 20, 15,  0,-30,
+     -30,  5, 10, 15, 15, 10,  5,-30,
+     -40,-20,  0,  5,  5,  0,-20,-40,
+     -50,-40,-30,-30,-30,-30,-40,-50
+    },
+    { // Bishop
+     -20,-10,-10,-10,-10,-10,-10,-20,
+     -10,  0,  0,  0,  0,  0,  0,-10,
+     -10,  0,  5, 10, 10,  5,  0,-10,
+     -10,  5,  5, 10, 10,  5,  5,-10,
+     -10,  0, 10, 10, 10, 10,  0,-10,
+     -10, 10, 10, 10, 10, 10, 10,-10,
+     -10,  5,  0,  0,  0,  0,  5,-10,
+     -20,-10,-10,-10,-10,-10,-10,-20
+    },
+    { // Rook
+       0,  0,  0,  0,  0,  0,  0,  0,
+       5, 10, 10, 10, 10, 10, 10,  5,
+      -5,  0,  0,  0,  0,  0,  0, -5,
+      -5,  0,  0,  0,  0,  0,  0, -5,
+      -5,  0,  0,  0,  0,  0,  0, -5,
+      -5,  0,  0,  0,  0,  0,  0, -5,
+      -5,  0,  0,  0,  0,  0,  0, -5,
+       0,  0,  0,  5,  5,  0,  0,  0
+    },
+    { // Queen
+     -20,-10,-10, -5, -5,-10,-10,-20,
+     -10,  0,  0,  0,  0,  0,  0,-10,
+     -10,  0,  5,  5,  5,  5,  0,-10,
+      -5,  0,  5,  5,  5,  5,  0, -5,
+       0,  0,  5,  5,  5,  5,  0, -5,
+     -10,  5,  5,  5,  5,  5,  0,-10,
+     -10,  0,  5,  0,  0,  0,  0,-10,
+     -20,-10,-10, -5, -5,-10,-10,-20
+    },
+    { // King, middlegame
+     -30,-40,-40,-50,-50,-40,-40,-30,
+     -30,-40,-40,-50,-50,-40,-40,-30,
+     -30,-40,-40,-50,-50,-40,-40,-30,
+     -30,-40,-40,-50,-50,-40,-40,-30,
+     -20,-30,-30,-40,-40,-30,-30,-20,
+     -10,-20,-20,-20,-20,-20,-20,-10,
+      20, 20,  0,  0,  0,  0, 20, 20,
+      20, 30, 10,  0,  0, 10, 30, 20
+    }
+  };
+
+  private static final int[] KING_ENDGAME = {
+    -50,-40,-30,-20,-20,-30,-40,-50,
+    -30,-20,-10,  0,  0,-10,-20,-30,
+    -30,-10, 20, 30, 30, 20,-10,-30,
+    -30,-10, 30, 40, 40, 30,-10,-30,
+    -30,-10, 30, 40, 40, 30,-10,-30,
+    -30,-10, 20, 30, 30, 20,-10,-30,
+    -30,-30,  0,  0,  0,  0,-30,-30,
+    -50,-30,-30,-30,-30,-30,-30,-50
+  };
+
+  /** Non-pawn material, per side, below which the kings use their endgame table. */
+  private static final int ENDGAME_MATERIAL = 1300;
+
+  private Evaluator() {
+  }
+
+  /**
+   * Evaluates a position from the point of view of the side to move.
+   * @param match the match holding the position.
+   * @return the score in centipawns; positive when the side to move is better.
+   */
+  public static int evaluate(ChessMatch match) {
+    int score = evaluate(match, Color.WHITE) - evaluate(match, Color.BLACK);
+    return match.getCurrentPlayer() == Color.WHITE ? score : -score;
+  }
+
+  /**
+   * Sums the material and piece-square bonuses of one side.
+   */
+  private static int evaluate(ChessMatch match, Color color) {
+    int mirror = (color == Color.WHITE) ? 0 : 56;
+    int score = 0;
+    for (PieceType type : PieceType.values()) {
+      if (type == PieceType.KING) {
+        continue;
+      }
+      int[] table = TABLES[type.ordinal()];
+      long bits = match.getBitboard(color, type);
+      score += Long.bitCount(bits) * VALUES[type.ordinal()];
+      while (bits != 0) {
+        score += table[Long.numberOfTrailingZeros(bits) ^ mirror];
+        bits &= bits - 1;
+      }
+    }
+    long king = match.getBitboard(color, PieceType.KING);
+    if (king != 0) {
+      int[] table = isEndgame(match) ? KING_ENDGAME : TABLES[PieceType.KING.ordinal()];
+      score += table[Long.numberOfTrailingZeros(king) ^ mirror];
+    }
+    return score;
+  }
+
+  /**
+   * Checks if the position is an endgame: no queens, or every side with little material.
+   */
+  private static boolean isEndgame(ChessMatch match) {
+    if ((match.getBitboard(Color.WHITE, PieceType.QUEEN) | match.getBitboard(Color.BLACK, PieceType.QUEEN)) == 0) {
+      return true;
+    }
+    return nonPawnMaterial(match, Color.WHITE) <= ENDGAME_MATERIAL && nonPawnMaterial(match, Color.BLACK) <= ENDGAME_MATERIAL;
+  }
+
+  private static int nonPawnMaterial(ChessMatch match, Color color) {
+    int material = 0;
+    for (PieceType type : PieceType.values()) {
+      if (type != PieceType.PAWN && type != PieceType.KING) {
+        material += Long.bitCount(match.getBitboard(color, type)) * VALUES[type.ordinal()];
+      }
+    }
+    return material;
+  }
+}
@@ -0,0 +1,176 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lazy SMP: several searches of the same position running at once, sharing a transposition table.
+ *
+ * The main search runs on the calling thread over the given match; every helper thread
+ * searches its own copy of the match, so the threads share nothing but the table. The helpers
+ * fill the table with results the main search then finds, and every other helper starts one
+ * iteration deeper so the threads do not walk the tree in lockstep. The move of the main
+ * search is returned as soon as it finishes, and the helpers are stopped.
+ *
+ * The helper threads and the Search of every thread, with its move arrays, are created once,
+ * with the ParallelSearch, and reused by every search. A ParallelSearch runs one search at a
+ * time; close it to release its threads.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+  private final int threads;
+  private final TranspositionTable table;
+  private final ExecutorService helpers;
+  private final Search[] searches; // searches[0] runs on the calling thread, the others on the helpers
+  private volatile Search main;
+  private OpeningBook book;
+
+  /**
+   * Creates a parallel search with a table of its own.
+   * @param threads the number of search threads, the calling thread included.
+   * @param megabytes the size of the shared transposition table.
+   */
+  public ParallelSearch(int threads, int megabytes) {
+    this(threads, new TranspositionTable(megabytes));
+  }
+
+  /**
+   * Creates a parallel search.
+   * @param threads the number of search threads, the calling thread included.
+   * @param table the transposition table shared by all threads.
+   */
+  public ParallelSearch(int threads, TranspositionTable table) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("A search needs at least one thread");
+    }
+    this.threads = threads;
+    this.table = table;
+    this.helpers = (threads == 1) ? null : Executors.newFixedThreadPool(threads - 1, r -> {
+      Thread thread = new Thread(r, "search-helper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.searches = new Search[threads];
+    for (int i = 0; i < threads; i++) {
+      searches[i] = new Search(null, table);
+      searches[i].firstDepth = 1 + (i & 1);
+      searches[i].ageTable = false;
+    }
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public TranspositionTable getTable() {
+    return table;
+  }
+
+  /**
+   * Sets the opening book consulted before each search; a book move is returned without waking the threads.
+   * @param book the book, or null to always search.
+   */
+  public void setBook(OpeningBook book) {
+    this.book = book;
+  }
+
+  /**
+   * Sets the endgame tablebase probed by every thread.
+   * @param tablebase the tablebase, or null to search every endgame.
+   */
+  public void setTablebase(Tablebase tablebase) {
+    for (Search search : searches) {
+      search.setTablebase(tablebase);
+    }
+  }
+
+  /**
+   * Searches the current position of a match with all threads.
+   * @param match the match to search; it is left in its original position.
+   * @param limits the budget of the search.
+   * @return the result of the main search, with the nodes of all threads.
+   */
+  public SearchResult search(ChessMatch match, SearchLimits limits) {
+    if (book != null && !match.getCheckMate()) {
+      long start = System.nanoTime();
+      int bookMove = book.choose(match, ThreadLocalRandom.current());
+      if (bookMove != Move.NONE) {
+        return SearchResult.book(bookMove, System.nanoTime() - start);
+      }
+    }
+    table.newSearch(); // Once for all threads, so every entry of this search has the same age
+    Search mainSearch = searches[0];
+    mainSearch.setMatch(match);
+    main = mainSearch;
+    List<Future<SearchResult>> futures = new ArrayList<>(threads - 1);
+    for (int i = 1; i < threads; i++) {
+      Search helper = searches[i];
+      helper.setMatch(match.copy());
+      futures.add(helpers.submit(() -> helper.search(limits)));
+    }
+
+    SearchResult result = mainSearch.search(limits);
+    long nodes = result.getNodes();
+    for (int i = 0; i < futures.size(); i++) {
+      nodes += await(searches[i + 1], futures.get(i));
+    }
+    main = null;
+    return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes, result.getNanos(), result.getPrincipalVariation());
+  }
+
+  /**
+   * Asks a running search to stop; it returns the best move of its last completed iteration.
+   */
+  public void stop() {
+    Search search = main;
+    if (search != null) {
+      search.stop();
+    }
+  }
+
+  /**
+   * Stops the helper threads.
+   */
+  @Override
+  public void close() {
+    if (helpers != null) {
+      helpers.shutdownNow();
+    }
+  }
+
+  /**
+   * Stops a helper and waits for its result. The stop request is repeated, because a helper
+   * that had not started yet clears it when its search begins.
+   * @return the nodes searched by the helper.
+   */
+  private static long await(Search helper, Future<SearchResult> future) {
+    while (true) {
+      helper.stop();
+      try {
+        return future.get(1, TimeUnit.MILLISECONDS).getNodes();
+      }
+      catch (TimeoutException e) {
+        // Not stopped yet
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return 0;
+      }
+      catch (ExecutionException e) {
+        throw new IllegalStateException("Search helper failed", e.getCause());
+      }
+    }
+  }
+}
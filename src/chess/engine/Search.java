@@ -0,0 +1,457 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.book.OpeningBook;
+import chess.tablebase.Tablebase;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Negamax alpha-beta search with iterative deepening.
+ *
+ * The search walks the match it was created for with ChessMatch.makeMove and unmakeMove,
+ * so the match is left in its original position when a search returns. Move lists, move
+ * scores, killer moves and the principal variation all live in arrays allocated once per
+ * Search, which makes a search allocation-free apart from its result as long as the Search is
+ * kept and searched again. A Search and its match must be used by one thread at a time; stop()
+ * may be called from any thread.
+ *
+ * Every node probes a transposition table, which may be shared by several searches, for a
+ * score that cuts the node off and for the best move found by earlier searches.
+ *
+ * When an opening book is set, a position found in it is answered with a book move at once.
+ * When a tablebase is set, a root position it covers is answered with the tablebase move, and
+ * positions inside the tree that it covers are scored exactly instead of searched further.
+ *
+ * Moves are ordered by the principal variation of the previous iteration and the table move, then captures
+ * by most valuable victim and least valuable attacker, then killer moves and the history
+ * heuristic. Leaves are resolved by a quiescence search over captures and promotions.
+ */
+public class Search {
+
+  /** The deepest iteration a search can reach. */
+  public static final int MAX_DEPTH = 64;
+
+  /** The score of a mate on the board; a mate in n plies scores MATE - n. */
+  public static final int MATE = 32000;
+
+  /** The size of the transposition table of a search that does not share one. */
+  public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+  /** The smallest absolute value of a mate score. */
+  public static final int MATE_BOUND = MATE - 2 * MAX_DEPTH;
+
+  static final int MAX_PLY = 2 * MAX_DEPTH;
+  private static final int INFINITY = MATE + 1;
+  private static final int CHECK_INTERVAL = 1023;
+
+  private static final int PV_SCORE = 1 << 30;
+  private static final int TABLE_MOVE_SCORE = 1 << 29;
+  private static final int CAPTURE_SCORE = 1 << 28;
+  private static final int KILLER_SCORE = 1 << 27;
+
+  private ChessMatch match;
+  private final TranspositionTable table;
+  private final int[][] moves = new int[MAX_PLY][256];
+  private final int[][] scores = new int[MAX_PLY][256];
+  private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+  private final int[] pvLength = new int[MAX_PLY + 1];
+  private final int[][] killers = new int[MAX_PLY][2];
+  private final int[] history = new int[64 * 64];
+  private final int[] previousPv = new int[MAX_PLY];
+  private OpeningBook book;
+  private Tablebase tablebase;
+  private int previousPvLength;
+  private boolean followPv;
+
+  int firstDepth = 1; // Helpers of a parallel search may start deeper, to spread the threads over the tree
+  boolean ageTable = true; // A parallel search starts the table generation once for all its threads
+  private volatile boolean stopRequested;
+  private boolean stopped;
+  private long nodes;
+  private long nodeLimit;
+  private long deadline;
+
+  /**
+   * Creates a search over a match, with a transposition table of its own of
+   * DEFAULT_TABLE_MEGABYTES. Callers that search many games should keep one Search per thread
+   * rather than create one per move.
+   * @param match the match to search; its position is the root of every search.
+   */
+  public Search(ChessMatch match) {
+    this(match, new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+  }
+
+  /**
+   * Creates a search over a match.
+   * @param match the match to search; its position is the root of every search.
+   * @param table the transposition table, which may be shared with other searches.
+   */
+  public Search(ChessMatch match, TranspositionTable table) {
+    this.match = match;
+    this.table = table;
+  }
+
+  /**
+   * Points the search at another match, keeping its move arrays, for a caller that searches many
+   * positions, such as ParallelSearch.
+   * @param match the match to search.
+   */
+  void setMatch(ChessMatch match) {
+    this.match = match;
+  }
+
+  /**
+   * Gets the transposition table of this search.
+   * @return the table.
+   */
+  public TranspositionTable getTable() {
+    return table;
+  }
+
+  /**
+   * Sets the opening book consulted before each search.
+   * @param book the book, or null to always search.
+   */
+  public void setBook(OpeningBook book) {
+    this.book = book;
+  }
+
+  /**
+   * Sets the endgame tablebase probed at the root and inside the tree.
+   * @param tablebase the tablebase, or null to search every endgame.
+   */
+  public void setTablebase(Tablebase tablebase) {
+    this.tablebase = tablebase;
+  }
+
+  /**
+   * Asks a running search to stop as soon as possible. The search returns the best move of
+   * its last completed iteration.
+   */
+  public void stop() {
+    stopRequested = true;
+  }
+
+  /**
+   * Searches the current position of the match by iterative deepening until the budget is spent.
+   * @param limits the budget of the search.
+   * @return the best move found, with its score and principal variation.
+   */
+  public SearchResult search(SearchLimits limits) {
+    long start = System.nanoTime();
+    int maxDepth = (limits.getDepth() == 0) ? MAX_DEPTH : Math.min(limits.getDepth(), MAX_DEPTH);
+    nodeLimit = (limits.getNodes() == 0) ? Long.MAX_VALUE : limits.getNodes();
+    deadline = (limits.getMillis() == 0) ? Long.MAX_VALUE : start + limits.getMillis() * 1_000_000L;
+    nodes = 0;
+    stopped = false;
+    stopRequested = false;
+    previousPvLength = 0;
+    for (int[] k : killers) {
+      k[0] = Move.NONE;
+      k[1] = Move.NONE;
+    }
+    Arrays.fill(history, 0);
+    if (ageTable) {
+      table.newSearch();
+    }
+
+    int[] rootMoves = moves[0];
+    int n = match.getCheckMate() ? 0 : match.legalMoves(rootMoves);
+    if (n == 0) {
+      return new SearchResult(Move.NONE, (match.getCheck() || match.getCheckMate()) ? -MATE : 0, 0, 0, System.nanoTime() - start, new int[0]);
+    }
+    if (book != null) {
+      int bookMove = book.choose(match, ThreadLocalRandom.current());
+      if (bookMove != Move.NONE) {
+        return SearchResult.book(bookMove, System.nanoTime() - start);
+      }
+    }
+    if (tablebase != null) {
+      int score = tablebase.probe(match);
+      int tablebaseMove = (score == Tablebase.NOT_FOUND) ? Move.NONE : tablebase.bestMove(match);
+      if (tablebaseMove != Move.NONE) {
+        return SearchResult.known(tablebaseMove, fromTablebase(score, 0), System.nanoTime() - start);
+      }
+    }
+
+    int bestMove = rootMoves[0];
+    int bestScore = 0;
+    int completedDepth = 0;
+    int[] line = {bestMove};
+    for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+      followPv = true;
+      int score = negamax(depth, 0, -INFINITY, INFINITY);
+      if (stopped) {
+        // A partial iteration still searched the previous best move first, so a better root
+        // move found before the stop is safe to play
+        if (pvLength[0] > 0 && pv[0][0] != bestMove) {
+          bestMove = pv[0][0];
+          line = Arrays.copyOf(pv[0], pvLength[0]);
+        }
+        break;
+      }
+      bestScore = score;
+      completedDepth = depth;
+      previousPvLength = pvLength[0];
+      System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+      bestMove = previousPv[0];
+      line = Arrays.copyOf(previousPv, previousPvLength);
+      if (n == 1 || Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth) {
+        break; // A forced move or a proven mate: deeper iterations cannot change the choice
+      }
+    }
+    return new SearchResult(bestMove, bestScore, completedDepth, nodes, System.nanoTime() - start, line);
+  }
+
+  /**
+   * Converts a tablebase score, a distance to mate from the probed position, into a search score.
+   */
+  private static int fromTablebase(int score, int ply) {
+    if (score > 0) {
+      return MATE - ply - (Tablebase.MATE - score);
+    }
+    return (score < 0) ? -(MATE - ply - (Tablebase.MATE + score)) : 0;
+  }
+
+  private int negamax(int depth, int ply, int alpha, int beta) {
+    pvLength[ply] = 0;
+    if (ply > 0 && checkLimits()) {
+      return 0;
+    }
+    if (ply > 0 && (match.getHalfmoveClock() >= 100 || match.getRepetitionCount() > 1)) {
+      return 0; // Draw: a repetition inside the tree is scored as one, so the search never walks into a cycle
+    }
+    if (ply > 0 && tablebase != null) {
+      int score = tablebase.probe(match);
+      if (score != Tablebase.NOT_FOUND) {
+        return fromTablebase(score, ply);
+      }
+    }
+    boolean inCheck = match.getCheck();
+    if (inCheck) {
+      depth++; // Check extension
+    }
+    if (depth <= 0 || ply >= MAX_PLY - 1) {
+      return quiescence(ply, alpha, beta);
+    }
+    nodes++;
+
+    long key = match.getZobristKey();
+    long entry = table.probe(key);
+    int tableMove = Move.NONE;
+    if (entry != 0) {
+      tableMove = TranspositionTable.move(entry);
+      if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+        int score = fromTable(TranspositionTable.score(entry), ply);
+        int bound = TranspositionTable.bound(entry);
+        if (bound == TranspositionTable.BOUND_EXACT
+            || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+            || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+          return score;
+        }
+      }
+    }
+
+    int[] list = moves[ply];
+    int n = match.legalMoves(list);
+    if (n == 0) {
+      return inCheck ? -MATE + ply : 0;
+    }
+    int pvMove = (followPv && ply < previousPvLength) ? previousPv[ply] : Move.NONE;
+    scoreMoves(ply, n, pvMove, tableMove);
+
+    int originalAlpha = alpha;
+    int bestMove = Move.NONE;
+
+    int bestScore = -INFINITY;
+    for (int i = 0; i < n; i++) {
+      int move = pickNext(ply, i, n);
+      followPv = (i == 0 && move == pvMove && pvMove != Move.NONE);
+      match.makeMove(move);
+      int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+      match.unmakeMove();
+      if (stopped) {
+        return 0;
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        bestMove = move;
+        if (score > alpha) {
+          alpha = score;
+          updatePv(ply, move);
+          if (score >= beta) {
+            if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+              storeKiller(ply, move);
+              history[Move.from(move) * 64 + Move.to(move)] += depth * depth;
+            }
+            break;
+          }
+        }
+      }
+    }
+    int bound = (bestScore >= beta) ? TranspositionTable.BOUND_LOWER
+        : (bestScore > originalAlpha) ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+    table.store(key, (bound == TranspositionTable.BOUND_UPPER) ? Move.NONE : bestMove, toTable(bestScore, ply), depth, bound);
+    return bestScore;
+  }
+
+  /**
+   * Searches captures and promotions only, until the position is quiet. In check every
+   * evasion is searched, since standing pat is not an option.
+   */
+  private int quiescence(int ply, int alpha, int beta) {
+    pvLength[ply] = 0;
+    if (checkLimits()) {
+      return 0;
+    }
+    nodes++;
+    boolean inCheck = match.getCheck();
+    int bestScore = -INFINITY;
+    if (!inCheck) {
+      bestScore = Evaluator.evaluate(match);
+      if (bestScore >= beta || ply >= MAX_PLY - 1) {
+        return bestScore;
+      }
+      alpha = Math.max(alpha, bestScore);
+    }
+
+    int[] list = moves[ply];
+    int n = match.legalMoves(list);
+    if (n == 0) {
+      return inCheck ? -MATE + ply : 0; // Checkmate or stalemate, whatever the material
+    }
+    if (ply >= MAX_PLY - 1) {
+      return Evaluator.evaluate(match);
+    }
+    if (!inCheck) {
+      int tactical = 0;
+      for (int i = 0; i < n; i++) {
+        if (Move.isCapture(list[i]) || Move.isPromotion(list[i])) {
+          list[tactical++] = list[i];
+        }
+      }
+      n = tactical;
+    }
+    scoreMoves(ply, n, Move.NONE, Move.NONE);
+
+    for (int i = 0; i < n; i++) {
+      int move = pickNext(ply, i, n);
+      match.makeMove(move);
+      int score = -quiescence(ply + 1, -beta, -alpha);
+      match.unmakeMove();
+      if (stopped) {
+        return 0;
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        if (score > alpha) {
+          alpha = score;
+          updatePv(ply, move);
+          if (score >= beta) {
+            break;
+          }
+        }
+      }
+    }
+    return bestScore;
+  }
+
+  /**
+   * Gives every move of a ply an ordering score.
+   */
+  private void scoreMoves(int ply, int n, int pvMove, int tableMove) {
+    int[] list = moves[ply];
+    int[] score = scores[ply];
+    for (int i = 0; i < n; i++) {
+      int move = list[i];
+      if (move == pvMove) {
+        score[i] = PV_SCORE;
+      }
+      else if (move == tableMove) {
+        score[i] = TABLE_MOVE_SCORE;
+      }
+      else if (Move.isCapture(move) || Move.isPromotion(move)) {
+        int value = 0;
+        if (Move.isCapture(move)) {
+          ChessPiece victim = match.getPiece(Move.to(move));
+          int victimValue = Evaluator.VALUES[(victim == null) ? PieceType.PAWN.ordinal() : victim.getType().ordinal()];
+          value = victimValue * 16 - match.getPiece(Move.from(move)).getType().ordinal();
+        }
+        if (Move.isPromotion(move)) {
+          value += Evaluator.VALUES[Move.promotion(move).ordinal()] * 16;
+        }
+        score[i] = CAPTURE_SCORE + value;
+      }
+      else if (move == killers[ply][0]) {
+        score[i] = KILLER_SCORE + 1;
+      }
+      else if (move == killers[ply][1]) {
+        score[i] = KILLER_SCORE;
+      }
+      else {
+        score[i] = Math.min(history[Move.from(move) * 64 + Move.to(move)], KILLER_SCORE - 1);
+      }
+    }
+  }
+
+  /**
+   * Moves the best scored of the remaining moves to position i and returns it.
+   */
+  private int pickNext(int ply, int i, int n) {
+    int[] list = moves[ply];
+    int[] score = scores[ply];
+    int best = i;
+    for (int j = i + 1; j < n; j++) {
+      if (score[j] > score[best]) {
+        best = j;
+      }
+    }
+    int move = list[best];
+    list[best] = list[i];
+    list[i] = move;
+    int s = score[best];
+    score[best] = score[i];
+    score[i] = s;
+    return move;
+  }
+
+  /**
+   * Converts a mate score from distance to the root into distance to the stored position.
+   */
+  private static int toTable(int score, int ply) {
+    return (score >= MATE_BOUND) ? score + ply : (score <= -MATE_BOUND) ? score - ply : score;
+  }
+
+  private static int fromTable(int score, int ply) {
+    return (score >= MATE_BOUND) ? score - ply : (score <= -MATE_BOUND) ? score + ply : score;
+  }
+
+  private void updatePv(int ply, int move) {
+    pv[ply][0] = move;
+    System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+    pvLength[ply] = pvLength[ply + 1] + 1;
+  }
+
+  private void storeKiller(int ply, int move) {
+    if (killers[ply][0] != move) {
+      killers[ply][1] = killers[ply][0];
+      killers[ply][0] = move;
+    }
+  }
+
+  /**
+   * Checks the node and time budgets and the stop request.
+   * @return true if the search must stop.
+   */
+  private boolean checkLimits() {
+    if (!stopped && (nodes >= nodeLimit || ((nodes & CHECK_INTERVAL) == 0 && (stopRequested || System.nanoTime() >= deadline)))) {
+      stopped = true;
+    }
+    return stopped;
+  }
+}
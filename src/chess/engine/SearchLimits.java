@@ -0,0 +1,75 @@
+package chess.engine;
+
+/**
+ * The budget of a search: a maximum depth, a number of nodes and a time in milliseconds.
+ * The search stops at whichever limit is reached first; zero means no limit, except for
+ * the depth, which is capped at Search.MAX_DEPTH.
+ */
+public final class SearchLimits {
+
+  private final int depth;
+  private final long nodes;
+  private final long millis;
+
+  /**
+   * Creates a budget.
+   * @param depth the deepest iteration, in plies, or 0 for no limit.
+   * @param nodes the maximum number of nodes, or 0 for no limit.
+   * @param millis the maximum search time in milliseconds, or 0 for no limit.
+   */
+  public SearchLimits(int depth, long nodes, long millis) {
+    if (depth < 0 || nodes < 0 || millis < 0) {
+      throw new IllegalArgumentException("Search limits cannot be negative");
+    }
+    if (depth == 0 && nodes == 0 && millis == 0) {
+      throw new IllegalArgumentException("A search needs a depth, node or time limit");
+    }
+    this.depth = depth;
+    this.nodes = nodes;
+    this.millis = millis;
+  }
+
+  /**
+   * Creates a budget limited only by depth.
+   * @param depth the deepest iteration, in plies.
+   * @return the budget.
+   */
+  public static SearchLimits depth(int depth) {
+    return new SearchLimits(depth, 0, 0);
+  }
+
+  /**
+   * Creates a budget limited only by node count.
+   * @param nodes the maximum number of nodes.
+   * @return the budget.
+   */
+  public static SearchLimits nodes(long nodes) {
+    return new SearchLimits(0, nodes, 0);
+  }
+
+  /**
+   * Creates a budget limited only by time.
+   * @param millis the maximum search time in milliseconds.
+   * @return the budget.
+   */
+  public static SearchLimits time(long millis) {
+    return new SearchLimits(0, 0, millis);
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public long getMillis() {
+    return millis;
+  }
+
+  @Override
+  public String toString() {
+    return "depth " + depth + ", nodes " + nodes + ", " + millis + " ms";
+  }
+}
@@ -0,0 +1,113 @@
+package chess.engine;
+
+import chess.Move;
+
+/**
+ * The outcome of a search: the best move, its score and the statistics of the search.
+ */
+public final class SearchResult {
+
+  private final int bestMove;
+  private final int score;
+  private final int depth;
+  private final long nodes;
+  private final long nanos;
+  private final int[] principalVariation;
+
+  SearchResult(int bestMove, int score, int depth, long nodes, long nanos, int[] principalVariation) {
+    this.bestMove = bestMove;
+    this.score = score;
+    this.depth = depth;
+    this.nodes = nodes;
+    this.nanos = nanos;
+    this.principalVariation = principalVariation;
+  }
+
+  /**
+   * Creates the result of a move taken from an opening book, without a search.
+   */
+  static SearchResult book(int move, long nanos) {
+    return known(move, 0, nanos);
+  }
+
+  /**
+   * Creates the result of a move known without a search, such as a tablebase move.
+   */
+  static SearchResult known(int move, int score, long nanos) {
+    return new SearchResult(move, score, 0, 0, nanos, new int[] {move});
+  }
+
+  /**
+   * Gets the move chosen by the search.
+   * @return the encoded move, or Move.NONE if the side to move has no legal move.
+   */
+  public int getBestMove() {
+    return bestMove;
+  }
+
+  /**
+   * Gets the score of the best move, from the point of view of the side to move.
+   * @return the score in centipawns, or a mate score beyond Search.MATE_BOUND.
+   */
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Gets the depth of the last completed iteration.
+   * @return the depth in plies, or 0 for a move taken from an opening book or a tablebase.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * Gets the expected line of play, starting with the best move.
+   * @return a copy of the encoded moves.
+   */
+  public int[] getPrincipalVariation() {
+    return principalVariation.clone();
+  }
+
+  /**
+   * Computes the search speed.
+   * @return the nodes searched per second.
+   */
+  public long getNodesPerSecond() {
+    return nodes * 1_000_000_000L / Math.max(nanos, 1);
+  }
+
+  /**
+   * Checks if the score announces a forced mate.
+   * @return true if the score is a mate score for either side.
+   */
+  public boolean isMate() {
+    return Math.abs(score) >= Search.MATE_BOUND;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("depth ").append(depth);
+    if (isMate()) {
+      int plies = Search.MATE - Math.abs(score);
+      sb.append(" mate ").append(score > 0 ? (plies + 1) / 2 : -(plies / 2));
+    }
+    else {
+      sb.append(" cp ").append(score);
+    }
+    sb.append(" nodes ").append(nodes).append(" nps ").append(getNodesPerSecond()).append(" pv");
+    for (int move : principalVariation) {
+      sb.append(' ').append(Move.toString(move));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,166 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results, keyed by the Zobrist key of the position.
+ *
+ * The table is a single long[] split into buckets of four entries, 64 bytes each, so a probe
+ * touches one cache line. An entry is two longs: the key XOR the data, then the data. The
+ * data packs the best move (bits 0-15), the score (16-31), the depth (32-39), the bound
+ * (40-41) and the age of the search that stored it (42-47).
+ *
+ * Many threads may probe and store concurrently without locks. Writes of two threads to the
+ * same entry can interleave, but a mixed entry no longer satisfies key == first ^ second and
+ * is read as a miss, so a probe never returns data that belongs to another position.
+ *
+ * When a bucket is full, a store replaces the entry with the lowest depth, counting entries
+ * left by older searches as shallower than they are.
+ */
+public final class TranspositionTable {
+
+  public static final int BOUND_NONE = 0;
+  public static final int BOUND_UPPER = 1;
+  public static final int BOUND_LOWER = 2;
+  public static final int BOUND_EXACT = 3;
+
+  private static final int BUCKET_ENTRIES = 4;
+  private static final int BUCKET_LONGS = 2 * BUCKET_ENTRIES;
+  private static final int AGE_MASK = 0x3F;
+
+  private final long[] table;
+  private final long bucketMask;
+  private volatile int age;
+
+  /**
+   * Creates an empty table.
+   * @param megabytes the memory used by the table, rounded down to a power of two buckets.
+   */
+  public TranspositionTable(int megabytes) {
+    if (megabytes < 1) {
+      throw new IllegalArgumentException("The transposition table needs at least 1 MB");
+    }
+    long buckets = Long.highestOneBit(megabytes * (1L << 20) / (BUCKET_LONGS * Long.BYTES));
+    buckets = Math.min(buckets, Integer.highestOneBit((Integer.MAX_VALUE - 8) / BUCKET_LONGS));
+    table = new long[(int)(buckets * BUCKET_LONGS)];
+    bucketMask = buckets - 1;
+  }
+
+  /**
+   * Empties the table and resets its age.
+   */
+  public void clear() {
+    Arrays.fill(table, 0);
+    age = 0;
+  }
+
+  /**
+   * Starts a new search generation: entries of earlier searches become preferred for replacement.
+   * Searches sharing the table must start one generation between them, not one each.
+   */
+  public synchronized void newSearch() {
+    age = (age + 1) & AGE_MASK;
+  }
+
+  /**
+   * Looks up a position.
+   * @param key the Zobrist key of the position.
+   * @return the packed data of the entry, or 0 if the position is not stored.
+   */
+  public long probe(long key) {
+    int base = bucket(key);
+    for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+      long data = table[i + 1];
+      if ((table[i] ^ data) == key && data != 0) {
+        return data;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Stores the result of a search, replacing the entry of the same position or the least
+   * valuable entry of its bucket.
+   * @param key the Zobrist key of the position.
+   * @param move the best move, or Move.NONE.
+   * @param score the score, already adjusted so that mate scores are relative to the position.
+   * @param depth the depth of the search, from 0 to 255.
+   * @param bound BOUND_EXACT, BOUND_LOWER (the score is at least this) or BOUND_UPPER.
+   */
+  public void store(long key, int move, int score, int depth, int bound) {
+    int base = bucket(key);
+    int currentAge = age;
+    int target = base;
+    int lowest = Integer.MAX_VALUE;
+    for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+      long data = table[i + 1];
+      if (data == 0 || (table[i] ^ data) == key) {
+        target = i;
+        if (data != 0 && move == 0) {
+          move = move(data); // Keep the best move of a previous search of this position
+        }
+        break;
+      }
+      int value = depth(data) - 8 * ((currentAge - age(data)) & AGE_MASK);
+      if (value < lowest) {
+        lowest = value;
+        target = i;
+      }
+    }
+    long data = (move & 0xFFFFL)
+        | ((score & 0xFFFFL) << 16)
+        | ((long)Math.min(Math.max(depth, 0), 255) << 32)
+        | ((long)(bound & 3) << 40)
+        | ((long)currentAge << 42);
+    table[target] = key ^ data;
+    table[target + 1] = data;
+  }
+
+  /**
+   * Estimates how full the table is from a sample of its buckets.
+   * @return the share of entries used by the current search, in permille.
+   */
+  public int hashfull() {
+    int sample = (int)Math.min(1000 / BUCKET_ENTRIES, bucketMask + 1);
+    int used = 0;
+    int currentAge = age;
+    for (int i = 0; i < sample * BUCKET_LONGS; i += 2) {
+      if (table[i + 1] != 0 && age(table[i + 1]) == currentAge) {
+        used++;
+      }
+    }
+    return used * 1000 / (sample * BUCKET_ENTRIES);
+  }
+
+  /**
+   * Gets the size of the table.
+   * @return the number of entries.
+   */
+  public long capacity() {
+    return (bucketMask + 1) * BUCKET_ENTRIES;
+  }
+
+  public static int move(long data) {
+    return (int)(data & 0xFFFF);
+  }
+
+  public static int score(long data) {
+    return (short)(data >>> 16);
+  }
+
+  public static int depth(long data) {
+    return (int)(data >>> 32) & 0xFF;
+  }
+
+  public static int bound(long data) {
+    return (int)(data >>> 40) & 3;
+  }
+
+  private static int age(long data) {
+    return (int)(data >>> 42) & AGE_MASK;
+  }
+
+  private int bucket(long key) {
+    return (int)((key ^ (key >>> 32)) & bucketMask) * BUCKET_LONGS;
+  }
+}
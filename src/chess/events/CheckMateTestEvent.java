@@ -0,0 +1,47 @@
+package chess.events;
+
+import chess.Color;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for ChessMatch testing a king for checkmate.
+ */
+@Name("chess.TestCheckMate")
+@Label("Test Checkmate")
+@Category({"Chess", "Check Detection"})
+@Description("A test of a king for checkmate: a check test and, in check, a search for a legal move")
+@StackTrace(false)
+public final class CheckMateTestEvent extends Event {
+
+  @Label("Color")
+  String color;
+
+  @Label("In Check")
+  boolean inCheck;
+
+  @Label("Candidate Moves")
+  @Description("The legal moves generated to look for a way out of check, 0 when not in check")
+  int candidateMoves;
+
+  @Label("Checkmate")
+  boolean checkMate;
+
+  /**
+   * Fills in the event.
+   * @param color the color of the king.
+   * @param inCheck true if the king is in check.
+   * @param candidateMoves the legal moves found.
+   */
+  public void set(Color color, boolean inCheck, int candidateMoves) {
+    this.color = color.name();
+    this.inCheck = inCheck;
+    this.candidateMoves = candidateMoves;
+    this.checkMate = inCheck && candidateMoves == 0;
+  }
+}
@@ -0,0 +1,49 @@
+package chess.events;
+
+import chess.ChessPiece;
+import chess.Move;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for ChessMatch replacing a promoted pawn with the piece a player chose.
+ */
+@Name("chess.Promotion")
+@Label("Promotion")
+@Category({"Chess", "Move Validation"})
+@Description("The replacement of a promoted pawn, with the check, checkmate and draw tests that follow")
+@StackTrace(false)
+public final class PromotionEvent extends Event {
+
+  @Label("Piece Type")
+  @Description("The type of the piece the pawn became")
+  String pieceType;
+
+  @Label("Source")
+  String source;
+
+  @Label("Target")
+  String target;
+
+  @Label("Candidate Moves")
+  @Description("The legal moves generated to test the opponent for checkmate, 0 when not in check")
+  int candidateMoves;
+
+  /**
+   * Fills in the event; call it only when shouldCommit() is true, since it builds strings.
+   * @param piece the piece the pawn became.
+   * @param move the promotion move.
+   * @param candidateMoves the legal moves generated for the checkmate test.
+   */
+  public void set(ChessPiece piece, int move, int candidateMoves) {
+    this.pieceType = piece.getType().name();
+    this.source = Move.squareName(Move.from(move));
+    this.target = Move.squareName(Move.to(move));
+    this.candidateMoves = candidateMoves;
+  }
+}
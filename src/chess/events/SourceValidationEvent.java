@@ -0,0 +1,51 @@
+package chess.events;
+
+import chess.ChessPiece;
+import chess.Move;
+import chess.metrics.Rejection;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for ChessMatch checking the piece a player picked to move.
+ */
+@Name("chess.ValidateSource")
+@Label("Validate Source")
+@Category({"Chess", "Move Validation"})
+@Description("A check of the piece picked to move: that it exists, belongs to the player and can move")
+@StackTrace(false)
+public final class SourceValidationEvent extends Event {
+
+  @Label("Piece Type")
+  String pieceType;
+
+  @Label("Source")
+  String source;
+
+  @Label("Candidate Moves")
+  @Description("The legal moves of the piece")
+  int candidateMoves;
+
+  @Label("Rejection")
+  @Description("Why the piece was turned down, or null if it may move")
+  String rejection;
+
+  /**
+   * Fills in the event; call it only when shouldCommit() is true, since it builds strings.
+   * @param piece the piece on the source square, or null if there is none.
+   * @param source the source square.
+   * @param candidateMoves the legal moves of the piece.
+   * @param rejection why the piece was turned down, or null.
+   */
+  public void set(ChessPiece piece, int source, int candidateMoves, Rejection rejection) {
+    this.pieceType = (piece == null) ? null : piece.getType().name();
+    this.source = Move.squareName(source);
+    this.candidateMoves = candidateMoves;
+    this.rejection = (rejection == null) ? null : rejection.name();
+  }
+}
@@ -0,0 +1,53 @@
+package chess.events;
+
+import chess.ChessPiece;
+import chess.Move;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for ChessMatch checking that a piece can reach the target square of a move.
+ */
+@Name("chess.ValidateTarget")
+@Label("Validate Target")
+@Category({"Chess", "Move Validation"})
+@Description("A check that the piece picked to move can reach the target square")
+@StackTrace(false)
+public final class TargetValidationEvent extends Event {
+
+  @Label("Piece Type")
+  String pieceType;
+
+  @Label("Source")
+  String source;
+
+  @Label("Target")
+  String target;
+
+  @Label("Candidate Moves")
+  @Description("The squares the piece attacks or can move to, before testing for check")
+  int candidateMoves;
+
+  @Label("Reachable")
+  boolean reachable;
+
+  /**
+   * Fills in the event; call it only when shouldCommit() is true, since it builds strings.
+   * @param piece the piece to move.
+   * @param source the source square.
+   * @param target the target square.
+   * @param reachable true if the piece can move to the target.
+   */
+  public void set(ChessPiece piece, int source, int target, boolean reachable) {
+    this.pieceType = piece.getType().name();
+    this.source = Move.squareName(source);
+    this.target = Move.squareName(target);
+    this.candidateMoves = Long.bitCount(piece.possibleTargets());
+    this.reachable = reachable;
+  }
+}
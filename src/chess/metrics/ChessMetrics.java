@@ -0,0 +1,198 @@
+package chess.metrics;
+
+import chess.PieceType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms of the hot paths of ChessMatch, shared by every match of the process.
+ *
+ * Recording is off unless the system property chess.metrics is true or setEnabled(true) is
+ * called, for example over JMX; a disabled hook costs one read of a volatile field. When
+ * enabled, counts go to LongAdder cells and values to Histogram buckets, so threads playing
+ * different matches never wait for each other. Moves are timed with System.nanoTime(), and
+ * their allocation is read from the thread allocation counter of the JVM where it has one.
+ *
+ * The figures are read with snapshot(), or over JMX once register() has been called.
+ */
+public final class ChessMetrics {
+
+  /** The system property that enables recording from the start. */
+  public static final String ENABLED_PROPERTY = "chess.metrics";
+
+  /** The name of the MXBean registered by register(). */
+  public static final String OBJECT_NAME = "chess:type=ChessMetrics";
+
+  private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+  private static volatile long resetNanos = System.nanoTime();
+
+  private static final Histogram moveLatency = new Histogram();
+  private static final Histogram moveAllocation = new Histogram();
+  private static final LongAdder checkTests = new LongAdder();
+  private static final LongAdder checkMateTests = new LongAdder();
+  private static final LongAdder[] possibleMoves = adders(PieceType.values().length);
+  private static final LongAdder[] rejections = adders(Rejection.values().length);
+
+  private ChessMetrics() {
+  }
+
+  /**
+   * Checks if the hooks record anything.
+   * @return true if recording is on.
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Turns recording on or off. The figures recorded so far are kept.
+   * @param on true to record.
+   */
+  public static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  /**
+   * Counts a call of ChessMatch.testCheck.
+   */
+  public static void checkTested() {
+    if (enabled) {
+      checkTests.increment();
+    }
+  }
+
+  /**
+   * Counts a call of ChessMatch.testCheckMate, made for every move played and every position set up.
+   */
+  public static void checkMateTested() {
+    if (enabled) {
+      checkMateTests.increment();
+    }
+  }
+
+  /**
+   * Counts a request for the possible moves of a piece.
+   * @param type the type of the piece.
+   */
+  public static void possibleMovesListed(PieceType type) {
+    if (enabled) {
+      possibleMoves[type.ordinal()].increment();
+    }
+  }
+
+  /**
+   * Counts a move turned down by ChessMatch.performChessMove. Queries such as possibleMoves that
+   * fail the same validation are not counted.
+   * @param reason why the move was turned down.
+   */
+  public static void rejected(Rejection reason) {
+    if (enabled) {
+      rejections[reason.ordinal()].increment();
+    }
+  }
+
+  /**
+   * Reads the allocation counter of the current thread, to be passed to movePerformed.
+   * @return the bytes allocated by the thread so far, or -1 if the JVM does not count them.
+   */
+  public static long allocatedBytes() {
+    com.sun.management.ThreadMXBean threads = AllocationCounter.THREADS;
+    return (threads == null) ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Records a move played through ChessMatch.performChessMove. Callers check isEnabled() first,
+   * since the arguments have to be read before the move.
+   * @param startNanos System.nanoTime() when the move started.
+   * @param startBytes allocatedBytes() when the move started.
+   */
+  public static void movePerformed(long startNanos, long startBytes) {
+    moveLatency.record(System.nanoTime() - startNanos);
+    if (startBytes >= 0) {
+      moveAllocation.record(allocatedBytes() - startBytes);
+    }
+  }
+
+  /**
+   * Copies every figure recorded since the start or the last reset.
+   * @return the snapshot.
+   */
+  public static MetricsSnapshot snapshot() {
+    long[] possible = new long[possibleMoves.length];
+    for (int i = 0; i < possible.length; i++) {
+      possible[i] = possibleMoves[i].sum();
+    }
+    long[] rejected = new long[rejections.length];
+    for (int i = 0; i < rejected.length; i++) {
+      rejected[i] = rejections[i].sum();
+    }
+    return new MetricsSnapshot(enabled, System.nanoTime() - resetNanos, moveLatency.snapshot(),
+        (AllocationCounter.THREADS == null) ? null : moveAllocation.snapshot(), checkTests.sum(), checkMateTests.sum(), possible, rejected);
+  }
+
+  /**
+   * Clears every figure.
+   */
+  public static void reset() {
+    moveLatency.reset();
+    moveAllocation.reset();
+    checkTests.reset();
+    checkMateTests.reset();
+    for (LongAdder adder : possibleMoves) {
+      adder.reset();
+    }
+    for (LongAdder adder : rejections) {
+      adder.reset();
+    }
+    resetNanos = System.nanoTime();
+  }
+
+  /**
+   * Registers the ChessMetricsMXBean with the platform MBean server, unless it already is.
+   * @return the name of the bean.
+   * @throws JMException if the bean cannot be registered.
+   */
+  public static synchronized ObjectName register() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (!server.isRegistered(name)) {
+      server.registerMBean(new MetricsBean(), name);
+    }
+    return name;
+  }
+
+  private static LongAdder[] adders(int count) {
+    LongAdder[] adders = new LongAdder[count];
+    for (int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  /**
+   * The thread allocation counter of the JVM, looked up on first use so that programs that
+   * never enable the metrics do not start the management classes.
+   */
+  private static final class AllocationCounter {
+    static final com.sun.management.ThreadMXBean THREADS = find();
+
+    /**
+     * Gets the counter, or null if the JVM has none or it is switched off.
+     */
+    private static com.sun.management.ThreadMXBean find() {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean)bean;
+        if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+          return counter;
+        }
+      }
+      return null;
+    }
+  }
+}
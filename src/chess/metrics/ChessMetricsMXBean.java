@@ -0,0 +1,51 @@
+package chess.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of ChessMetrics, registered by ChessMetrics.register(). Every attribute is read
+ * from a fresh snapshot; durations are in nanoseconds.
+ */
+public interface ChessMetricsMXBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  long getMovesPerformed();
+
+  double getMoveLatencyMeanNanos();
+
+  long getMoveLatencyP50Nanos();
+
+  long getMoveLatencyP99Nanos();
+
+  long getMoveLatencyMaxNanos();
+
+  /**
+   * Gets the mean allocation of ChessMatch.performChessMove.
+   * @return the bytes per move, or -1 if the JVM does not count allocations.
+   */
+  double getAllocatedBytesPerMove();
+
+  long getCheckTests();
+
+  long getCheckMateTests();
+
+  /**
+   * Gets the requests for possible moves.
+   * @return the count per piece type, keyed by the PieceType name.
+   */
+  Map<String, Long> getPossibleMovesByPieceType();
+
+  /**
+   * Gets the moves turned down.
+   * @return the count per reason, keyed by the Rejection name.
+   */
+  Map<String, Long> getRejectedMovesByReason();
+
+  /**
+   * Clears every figure.
+   */
+  void reset();
+}
@@ -0,0 +1,146 @@
+package chess.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative values, such as latencies in nanoseconds.
+ *
+ * Buckets are log-linear, as in HdrHistogram: values below 64 get a bucket each, and every
+ * power of two above that is split into 32 buckets, so a percentile is known to within about
+ * 3% at any magnitude with under 2000 buckets. Recording is an increment of one bucket and
+ * two LongAdder cells, without locks or allocation, and may run on many threads at once.
+ */
+public final class Histogram {
+
+  private static final int SUB_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records a value; negative values are recorded as 0.
+   * @param value the value.
+   */
+  public void record(long value) {
+    value = Math.max(value, 0);
+    counts.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Clears the histogram. Values recorded while it is cleared may be kept or lost.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  /**
+   * Copies the histogram. Values recorded during the copy may be missing from it.
+   * @return the snapshot.
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      total += copy[i];
+    }
+    return new Snapshot(copy, total, sum.sum(), max.get());
+  }
+
+  private static int bucket(long value) {
+    int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+    return shift * SUB_BUCKETS + (int)(value >>> shift);
+  }
+
+  /**
+   * Gets the largest value of a bucket.
+   */
+  private static long highestValue(int bucket) {
+    int shift = Math.max(0, bucket / SUB_BUCKETS - 1);
+    long lowest = (long)(bucket - shift * SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * The values of a histogram at one point in time.
+   */
+  public static final class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    Snapshot(long[] counts, long count, long sum, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    /**
+     * Gets the number of values recorded.
+     * @return the count.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Gets the mean of the values.
+     * @return the mean, or 0 if there is no value.
+     */
+    public double getMean() {
+      return (count == 0) ? 0 : (double)sum / count;
+    }
+
+    /**
+     * Gets the largest value recorded.
+     * @return the maximum, or 0 if there is no value.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Gets a percentile of the values.
+     * @param percentile the percentile, from 0 to 100.
+     * @return an upper bound of the percentile, within the precision of the buckets and never
+     *     above the maximum, or 0 if there is no value.
+     */
+    public long getPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long)Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValue(i), max);
+        }
+      }
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("count %d mean %.1f p50 %d p90 %d p99 %d max %d", count, getMean(),
+          getPercentile(50), getPercentile(90), getPercentile(99), max);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package chess.metrics;
+
+import chess.PieceType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The MXBean of ChessMetrics.
+ */
+final class MetricsBean implements ChessMetricsMXBean {
+
+  @Override
+  public boolean isEnabled() {
+    return ChessMetrics.isEnabled();
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    ChessMetrics.setEnabled(enabled);
+  }
+
+  @Override
+  public long getMovesPerformed() {
+    return ChessMetrics.snapshot().getMoveLatency().getCount();
+  }
+
+  @Override
+  public double getMoveLatencyMeanNanos() {
+    return ChessMetrics.snapshot().getMoveLatency().getMean();
+  }
+
+  @Override
+  public long getMoveLatencyP50Nanos() {
+    return ChessMetrics.snapshot().getMoveLatency().getPercentile(50);
+  }
+
+  @Override
+  public long getMoveLatencyP99Nanos() {
+    return ChessMetrics.snapshot().getMoveLatency().getPercentile(99);
+  }
+
+  @Override
+  public long getMoveLatencyMaxNanos() {
+    return ChessMetrics.snapshot().getMoveLatency().getMax();
+  }
+
+  @Override
+  public double getAllocatedBytesPerMove() {
+    Histogram.Snapshot allocation = ChessMetrics.snapshot().getMoveAllocation();
+    return (allocation == null) ? -1 : allocation.getMean();
+  }
+
+  @Override
+  public long getCheckTests() {
+    return ChessMetrics.snapshot().getCheckTests();
+  }
+
+  @Override
+  public long getCheckMateTests() {
+    return ChessMetrics.snapshot().getCheckMateTests();
+  }
+
+  @Override
+  public Map<String, Long> getPossibleMovesByPieceType() {
+    MetricsSnapshot snapshot = ChessMetrics.snapshot();
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (PieceType type : PieceType.values()) {
+      counts.put(type.name(), snapshot.getPossibleMoves(type));
+    }
+    return counts;
+  }
+
+  @Override
+  public Map<String, Long> getRejectedMovesByReason() {
+    MetricsSnapshot snapshot = ChessMetrics.snapshot();
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (Rejection reason : Rejection.values()) {
+      counts.put(reason.name(), snapshot.getRejections(reason));
+    }
+    return counts;
+  }
+
+  @Override
+  public void reset() {
+    ChessMetrics.reset();
+  }
+}
@@ -0,0 +1,121 @@
+package chess.metrics;
+
+import chess.PieceType;
+
+/**
+ * The figures of ChessMetrics at one point in time.
+ */
+public final class MetricsSnapshot {
+
+  private final boolean enabled;
+  private final long elapsedNanos;
+  private final Histogram.Snapshot moveLatency;
+  private final Histogram.Snapshot moveAllocation;
+  private final long checkTests;
+  private final long checkMateTests;
+  private final long[] possibleMoves;
+  private final long[] rejections;
+
+  MetricsSnapshot(boolean enabled, long elapsedNanos, Histogram.Snapshot moveLatency, Histogram.Snapshot moveAllocation,
+      long checkTests, long checkMateTests, long[] possibleMoves, long[] rejections) {
+    this.enabled = enabled;
+    this.elapsedNanos = elapsedNanos;
+    this.moveLatency = moveLatency;
+    this.moveAllocation = moveAllocation;
+    this.checkTests = checkTests;
+    this.checkMateTests = checkMateTests;
+    this.possibleMoves = possibleMoves;
+    this.rejections = rejections;
+  }
+
+  /**
+   * Checks if recording was on when the snapshot was taken.
+   * @return true if recording was on.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Gets the time covered by the snapshot.
+   * @return the nanoseconds since the process started or the metrics were last reset.
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Gets the durations of ChessMatch.performChessMove, rejected moves excluded.
+   * @return the histogram, in nanoseconds; its count is the number of moves played.
+   */
+  public Histogram.Snapshot getMoveLatency() {
+    return moveLatency;
+  }
+
+  /**
+   * Gets the bytes allocated by each ChessMatch.performChessMove.
+   * @return the histogram, or null if the JVM does not count allocations.
+   */
+  public Histogram.Snapshot getMoveAllocation() {
+    return moveAllocation;
+  }
+
+  public long getCheckTests() {
+    return checkTests;
+  }
+
+  public long getCheckMateTests() {
+    return checkMateTests;
+  }
+
+  /**
+   * Gets the number of times the possible moves of a type of piece were asked for.
+   * @param type the piece type.
+   * @return the count.
+   */
+  public long getPossibleMoves(PieceType type) {
+    return possibleMoves[type.ordinal()];
+  }
+
+  /**
+   * Gets the number of moves turned down for a reason.
+   * @param reason the reason.
+   * @return the count.
+   */
+  public long getRejections(Rejection reason) {
+    return rejections[reason.ordinal()];
+  }
+
+  /**
+   * Gets the number of moves turned down for any reason.
+   * @return the count.
+   */
+  public long getRejections() {
+    long total = 0;
+    for (long count : rejections) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * Writes the snapshot as a report of a few lines.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("metrics %s over %.1f s%n", enabled ? "on" : "off", elapsedNanos / 1e9));
+    sb.append("move nanos: ").append(moveLatency).append(System.lineSeparator());
+    sb.append("move bytes: ").append((moveAllocation == null) ? "unavailable" : moveAllocation).append(System.lineSeparator());
+    sb.append("testCheck ").append(checkTests).append(", testCheckMate ").append(checkMateTests).append(System.lineSeparator());
+    sb.append("possibleMoves:");
+    for (PieceType type : PieceType.values()) {
+      sb.append(' ').append(type.name().toLowerCase()).append(' ').append(possibleMoves[type.ordinal()]);
+    }
+    sb.append(System.lineSeparator()).append("rejected:");
+    for (Rejection reason : Rejection.values()) {
+      sb.append(' ').append(reason.name().toLowerCase()).append(' ').append(rejections[reason.ordinal()]);
+    }
+    return sb.append(System.lineSeparator()).toString();
+  }
+}
@@ -0,0 +1,22 @@
+package chess.metrics;
+
+/**
+ * The reasons ChessMatch turns down a move asked for by a player.
+ */
+public enum Rejection {
+
+  /** There is no piece on the source square. */
+  NO_PIECE,
+
+  /** The piece on the source square belongs to the opponent. */
+  NOT_OWN_PIECE,
+
+  /** The piece on the source square has no legal move. */
+  NO_LEGAL_MOVE,
+
+  /** The piece cannot reach the target square. */
+  UNREACHABLE_TARGET,
+
+  /** The move would leave the player's own king in check. */
+  KING_LEFT_IN_CHECK
+}
@@ -0,0 +1,293 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.PieceType;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One game of a PGN file: its tags and its movetext, still in the bytes of the file.
+ *
+ * The tags are decoded when the game is created. The movetext is only read by replay(),
+ * which walks it in place, skipping move numbers, comments, variations and annotation
+ * glyphs, and plays every move through ChessMatch.performChessMove.
+ */
+public class PgnGame {
+
+  private static final String[] RESULTS = {"1-0", "0-1", "1/2-1/2"};
+
+  private final long number;
+  private final ByteBuffer text;
+  private final Map<String, String> tags;
+  private final int movetextStart;
+  private int plies;
+
+  private PgnGame(long number, ByteBuffer text, Map<String, String> tags, int movetextStart) {
+    this.number = number;
+    this.text = text;
+    this.tags = tags;
+    this.movetextStart = movetextStart;
+  }
+
+  /**
+   * Reads the tags of a game.
+   * @param number the position of the game in its file, from 1.
+   * @param text the text of the game, as returned by PgnReader.
+   * @return the game.
+   * @throws ChessException if a tag line is malformed.
+   */
+  public static PgnGame parse(long number, ByteBuffer text) {
+    Map<String, String> tags = new LinkedHashMap<>();
+    int limit = text.limit();
+    int i = 0;
+    while (true) {
+      while (i < limit && PgnReader.isSpace(text.get(i))) {
+        i++;
+      }
+      if (i >= limit || text.get(i) != '[') {
+        break;
+      }
+      int nameStart = ++i;
+      while (i < limit && !PgnReader.isSpace(text.get(i)) && text.get(i) != '"') {
+        i++;
+      }
+      String name = ascii(text, nameStart, i);
+      while (i < limit && text.get(i) != '"' && text.get(i) != '\n') {
+        i++;
+      }
+      if (i >= limit || text.get(i) != '"') {
+        throw new ChessException("Game " + number + ": malformed tag " + name);
+      }
+      StringBuilder value = new StringBuilder();
+      for (i++; i < limit && text.get(i) != '"'; i++) {
+        if (text.get(i) == '\\' && i + 1 < limit) {
+          i++;
+        }
+        value.append((char)(text.get(i) & 0xFF));
+      }
+      tags.put(name, value.toString());
+      while (i < limit && text.get(i) != '\n') {
+        i++;
+      }
+    }
+    return new PgnGame(number, text, tags, i);
+  }
+
+  public long getNumber() {
+    return number;
+  }
+
+  /**
+   * Gets the tags of the game, in file order.
+   * @return an unmodifiable map from tag name to value.
+   */
+  public Map<String, String> getTags() {
+    return Collections.unmodifiableMap(tags);
+  }
+
+  /**
+   * Gets the value of a tag.
+   * @param name the tag name, such as "White" or "Result".
+   * @return the value, or null if the game has no such tag.
+   */
+  public String getTag(String name) {
+    return tags.get(name);
+  }
+
+  /**
+   * Gets the number of half moves played by the last replay.
+   * @return the plies replayed, up to the first illegal move.
+   */
+  public int getPlies() {
+    return plies;
+  }
+
+  /**
+   * Plays the moves of the game from its starting position, the FEN tag or the initial position.
+   * @return the match in the final position of the game.
+   * @throws ChessException if the starting position or a move is not valid; the message names the move.
+   */
+  public ChessMatch replay() {
+    return replay(new int[256]);
+  }
+
+  /**
+   * Plays the moves of the game, with a caller-provided scratch buffer.
+   * @param buffer a buffer of at least 256 moves.
+   * @return the match in the final position of the game.
+   * @throws ChessException if the starting position or a move is not valid; the message names the move.
+   */
+  public ChessMatch replay(int[] buffer) {
+    return replay(buffer, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Plays the first moves of the game, for callers such as an opening book that need no more.
+   * @param buffer a buffer of at least 256 moves.
+   * @param maxPlies the number of half moves to play at most.
+   * @return the match after the last move played.
+   * @throws ChessException if the starting position or a move played is not valid; the message names the move.
+   */
+  public ChessMatch replay(int[] buffer, int maxPlies) {
+    String fen = tags.get("FEN");
+    ChessMatch match = (fen == null) ? new ChessMatch() : ChessMatch.fromFen(fen);
+    plies = 0;
+    ByteSequence san = new ByteSequence(text);
+    int limit = text.limit();
+    int i = movetextStart;
+    while (i < limit && plies < maxPlies) {
+      byte c = text.get(i);
+      if (PgnReader.isSpace(c)) {
+        i++;
+      }
+      else if (c == '{') {
+        i = skipPast(i, '}');
+      }
+      else if (c == ';' || c == '%') {
+        i = skipPast(i, '\n');
+      }
+      else if (c == '(') {
+        i = skipVariation(i);
+      }
+      else if (c == '$') {
+        for (i++; i < limit && text.get(i) >= '0' && text.get(i) <= '9'; i++) {
+        }
+      }
+      else if (c == '*') {
+        break;
+      }
+      else {
+        int end = i;
+        while (end < limit && !isDelimiter(text.get(end))) {
+          end++;
+        }
+        int dot = end - 1;
+        while (dot >= i && text.get(dot) != '.') {
+          dot--;
+        }
+        if (dot >= i) {
+          i = dot + 1; // A move number, possibly glued to the move: "12." "12..." "12.e4"
+          continue;
+        }
+        san.reset(i, end);
+        if (isResult(san)) {
+          break;
+        }
+        play(match, san, buffer);
+        i = end;
+      }
+    }
+    return match;
+  }
+
+  private void play(ChessMatch match, ByteSequence san, int[] buffer) {
+    try {
+      if (match.getCheckMate()) {
+        throw new ChessException("the game is already over");
+      }
+      int move = San.parse(match, san, buffer);
+      match.performChessMove(Move.source(move), Move.target(move));
+      PieceType promotion = Move.promotion(move);
+      if (promotion != null && promotion != PieceType.QUEEN) {
+        match.replacePromotedPiece(String.valueOf("PNBRQK".charAt(promotion.ordinal())));
+      }
+      plies++;
+    }
+    catch (ChessException e) {
+      throw new ChessException("Game " + number + ", ply " + (plies + 1) + " '" + san + "': " + e.getMessage());
+    }
+  }
+
+  private int skipPast(int i, char end) {
+    while (i < text.limit() && text.get(i) != end) {
+      i++;
+    }
+    return i + 1;
+  }
+
+  /**
+   * Skips a variation, with the variations and comments nested in it.
+   */
+  private int skipVariation(int i) {
+    int depth = 0;
+    while (i < text.limit()) {
+      byte c = text.get(i);
+      if (c == '{') {
+        i = skipPast(i, '}');
+        continue;
+      }
+      if (c == '(') {
+        depth++;
+      }
+      else if (c == ')' && --depth == 0) {
+        return i + 1;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isDelimiter(byte c) {
+    return PgnReader.isSpace(c) || c == '{' || c == '(' || c == ')' || c == ';' || c == '$';
+  }
+
+  private static boolean isResult(CharSequence s) {
+    for (String result : RESULTS) {
+      if (result.contentEquals(s)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String ascii(ByteBuffer text, int start, int end) {
+    StringBuilder sb = new StringBuilder(end - start);
+    for (int i = start; i < end; i++) {
+      sb.append((char)(text.get(i) & 0xFF));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * A reusable view of part of a game as characters, so SAN moves are parsed without copying them.
+   */
+  private static final class ByteSequence implements CharSequence {
+    private final ByteBuffer text;
+    private int start;
+    private int end;
+
+    ByteSequence(ByteBuffer text) {
+      this.text = text;
+    }
+
+    void reset(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int length() {
+      return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char)(text.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+      return ascii(text, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+      return ascii(text, start, end);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a PGN file into games without copying it.
+ *
+ * The file is memory-mapped in windows of up to one gigabyte, so files larger than a single
+ * mapping are supported, and every game is returned as a slice of the current window. A new
+ * game starts at a tag line ("[Event ...") that follows the movetext of the previous game;
+ * tag-like lines inside brace comments are ignored. A game must fit in one window.
+ *
+ * The reader is not thread-safe, but the slices it returns may be handed to other threads.
+ */
+public class PgnReader implements Closeable {
+
+  private static final long DEFAULT_WINDOW = 1L << 30;
+
+  private final FileChannel channel;
+  private final long size;
+  private final long windowSize;
+  private MappedByteBuffer window;
+  private long windowOffset;
+  private int cursor;
+
+  /**
+   * Opens a PGN file.
+   * @param path the file.
+   * @throws IOException if the file cannot be opened.
+   */
+  public PgnReader(Path path) throws IOException {
+    this(path, DEFAULT_WINDOW);
+  }
+
+  /**
+   * Opens a PGN file with a given mapping window.
+   * @param path the file.
+   * @param windowSize the largest part of the file mapped at once, up to 2 GB.
+   * @throws IOException if the file cannot be opened.
+   */
+  public PgnReader(Path path, long windowSize) throws IOException {
+    if (windowSize < 1 || windowSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("The mapping window must be between 1 byte and 2 GB");
+    }
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.size = channel.size();
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Gets the size of the file.
+   * @return the size in bytes.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Gets how far the reader has come.
+   * @return the offset in the file of the end of the last game returned.
+   */
+  public long position() {
+    return windowOffset + cursor;
+  }
+
+  /**
+   * Reads the next game.
+   * @return the text of the game, tags and movetext, or null at the end of the file.
+   * @throws IOException if the file cannot be mapped or a game is larger than the window.
+   */
+  public ByteBuffer nextGame() throws IOException {
+    if (window == null) {
+      map(0);
+    }
+    while (true) {
+      int limit = window.limit();
+      int start = cursor;
+      while (start < limit && isSpace(window.get(start))) {
+        start++;
+      }
+      if (start == limit && windowOffset + limit >= size) {
+        cursor = limit;
+        return null;
+      }
+      int end = gameEnd(start);
+      if (end < 0) {
+        if (windowOffset + limit >= size) {
+          end = limit; // The last game of the file
+        }
+        else if (start == 0) {
+          throw new IOException("A game at offset " + windowOffset + " is larger than the mapping window");
+        }
+        else {
+          map(windowOffset + start); // The game runs past the window: map again from its start
+          continue;
+        }
+      }
+      cursor = end;
+      return window.slice(start, end - start);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Finds where the game starting at an index ends.
+   * @return the index of the first line of the next game, or -1 if the window ends first.
+   */
+  private int gameEnd(int start) {
+    int limit = window.limit();
+    boolean movetext = false;
+    int depth = 0; // Nesting of brace comments
+    int i = start;
+    while (i < limit) {
+      byte c = window.get(i);
+      boolean tag = depth == 0 && c == '[';
+      if (tag && movetext) {
+        return i;
+      }
+      if (!tag && !isSpace(c)) {
+        movetext = true;
+      }
+      while (i < limit && (c = window.get(i)) != '\n') {
+        if (!tag) {
+          if (c == '{') {
+            depth++;
+          }
+          else if (c == '}' && depth > 0) {
+            depth--;
+          }
+        }
+        i++;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  private void map(long offset) throws IOException {
+    windowOffset = offset;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, size - offset));
+    cursor = 0;
+  }
+
+  static boolean isSpace(byte c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+  }
+}
@@ -0,0 +1,170 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays every game of a PGN file through the rules of ChessMatch, in parallel.
+ *
+ * One thread reads and splits the file while a fixed pool of workers parses and replays the
+ * games. At most a fixed number of games may be waiting or running at once: when the workers
+ * fall behind, the reader blocks until one of them finishes, so memory use stays bounded
+ * however large the file is.
+ *
+ * The counters may be read from any thread while a replay runs, for progress reports.
+ */
+public class PgnReplayer {
+
+  /**
+   * Receives every replayed game, on the worker thread that replayed it.
+   */
+  public interface Listener {
+
+    /**
+     * Called once per game, including games whose tags could not be parsed.
+     * @param number the number of the game in the file, from 1.
+     * @param game the game, with its tags, or null if its tags are malformed.
+     * @param match the final position, or null if the game could not be replayed.
+     * @param error the reason the game could not be replayed, or null if every move was legal.
+     */
+    void gameReplayed(long number, PgnGame game, ChessMatch match, ChessException error);
+  }
+
+  private final int threads;
+  private final int maxPending;
+
+  private final LongAdder games = new LongAdder();
+  private final LongAdder moves = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final AtomicLong bytesRead = new AtomicLong();
+  private volatile long bytesTotal;
+  private volatile long startNanos;
+
+  /**
+   * Creates a replayer.
+   * @param threads the number of worker threads.
+   * @param maxPending the largest number of games queued or running at once.
+   */
+  public PgnReplayer(int threads, int maxPending) {
+    if (threads < 1 || maxPending < threads) {
+      throw new IllegalArgumentException("Need at least one thread and as many pending games as threads");
+    }
+    this.threads = threads;
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * Replays every game of a file and waits until all of them are done.
+   * @param path the PGN file.
+   * @param listener receives every game, or null.
+   * @throws IOException if the file cannot be read.
+   * @throws InterruptedException if the calling thread is interrupted while waiting for the workers.
+   */
+  public void replay(Path path, Listener listener) throws IOException, InterruptedException {
+    ExecutorService workers = Executors.newFixedThreadPool(threads);
+    ThreadLocal<int[]> buffers = ThreadLocal.withInitial(() -> new int[256]);
+    Semaphore pending = new Semaphore(maxPending);
+    startNanos = System.nanoTime();
+    try (PgnReader reader = new PgnReader(path)) {
+      bytesTotal = reader.size();
+      long number = 0;
+      ByteBuffer text;
+      while ((text = reader.nextGame()) != null) {
+        pending.acquire(); // Backpressure: wait for a worker when too many games are in flight
+        long gameNumber = ++number;
+        ByteBuffer game = text;
+        workers.execute(() -> {
+          try {
+            replay(gameNumber, game, buffers.get(), listener);
+          }
+          finally {
+            pending.release();
+          }
+        });
+        bytesRead.set(reader.position());
+      }
+    }
+    finally {
+      workers.shutdown();
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void replay(long number, ByteBuffer text, int[] buffer, Listener listener) {
+    PgnGame game = null;
+    ChessMatch match = null;
+    ChessException error = null;
+    try {
+      game = PgnGame.parse(number, text);
+      match = game.replay(buffer);
+    }
+    catch (RuntimeException e) {
+      // A malformed game may also fail outside the rules, for example while decoding a move; it
+      // counts as one bad game and the worker goes on with the next
+      error = (e instanceof ChessException) ? (ChessException)e : new ChessException("Game " + number + ": " + e);
+      errors.increment();
+    }
+    games.increment();
+    if (game != null) {
+      moves.add(game.getPlies());
+    }
+    if (listener != null) {
+      listener.gameReplayed(number, game, error == null ? match : null, error);
+    }
+  }
+
+  public long getGames() {
+    return games.sum();
+  }
+
+  public long getMoves() {
+    return moves.sum();
+  }
+
+  /**
+   * Gets the number of games with a malformed tag, an invalid starting position, an illegal move
+   * or any other fault found while replaying them.
+   */
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  /**
+   * Gets the share of the file read so far.
+   * @return a number from 0 to 1.
+   */
+  public double getProgress() {
+    long total = bytesTotal;
+    return (total == 0) ? 0 : (double)bytesRead.get() / total;
+  }
+
+  /**
+   * Computes the throughput since the replay started.
+   * @return the games replayed per second.
+   */
+  public double getGamesPerSecond() {
+    return getGames() / elapsedSeconds();
+  }
+
+  /**
+   * Computes the throughput since the replay started.
+   * @return the moves replayed per second.
+   */
+  public double getMovesPerSecond() {
+    return getMoves() / elapsedSeconds();
+  }
+
+  private double elapsedSeconds() {
+    return Math.max((System.nanoTime() - startNanos) / 1e9, 1e-9);
+  }
+}
@@ -0,0 +1,206 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+
+/**
+ * Converts between encoded moves and Standard Algebraic Notation, such as "Nbd7", "exd6",
+ * "O-O" or "e8=Q+".
+ *
+ * Moves are resolved against the legal moves of the position, so a SAN move that names a
+ * piece, target and disambiguation matching exactly one legal move is accepted; check and
+ * annotation suffixes are ignored when parsing.
+ */
+public final class San {
+
+  private San() {
+  }
+
+  /**
+   * Finds the legal move written in SAN.
+   * @param match the match, in the position before the move.
+   * @param san the move text; it is read in place and not copied.
+   * @param buffer a scratch buffer of at least 256 moves.
+   * @return the encoded move.
+   * @throws ChessException if no legal move, or more than one, matches the text.
+   */
+  public static int parse(ChessMatch match, CharSequence san, int[] buffer) {
+    int end = san.length();
+    while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+      end--;
+    }
+    int n = match.legalMoves(buffer);
+
+    if (isCastling(san, end, 3) || isCastling(san, end, 5)) {
+      int flag = (end == 3) ? Move.KING_CASTLE : Move.QUEEN_CASTLE;
+      for (int i = 0; i < n; i++) {
+        if (Move.flags(buffer[i]) == flag) {
+          return buffer[i];
+        }
+      }
+      throw invalid(san, "castling is not legal");
+    }
+
+    int start = 0;
+    PieceType type = PieceType.PAWN;
+    if (end > 0 && "NBRQK".indexOf(san.charAt(0)) >= 0) {
+      type = pieceType(san.charAt(0));
+      start = 1;
+    }
+    PieceType promotion = null;
+    if (end > 0 && "NBRQ".indexOf(san.charAt(end - 1)) >= 0 && type == PieceType.PAWN) {
+      promotion = pieceType(san.charAt(end - 1));
+      end--;
+      if (end > 0 && san.charAt(end - 1) == '=') {
+        end--;
+      }
+    }
+    if (end - start < 2) {
+      throw invalid(san, "missing target square");
+    }
+    int to = square(san.charAt(end - 2), san.charAt(end - 1));
+    if (to < 0) {
+      throw invalid(san, "bad target square");
+    }
+    int fromColumn = -1;
+    int fromRow = -1;
+    for (int i = start; i < end - 2; i++) {
+      char c = san.charAt(i);
+      if (c >= 'a' && c <= 'h') {
+        fromColumn = c - 'a';
+      }
+      else if (c >= '1' && c <= '8') {
+        fromRow = '8' - c;
+      }
+      else if (c != 'x' && c != '-') {
+        throw invalid(san, "unexpected '" + c + "'");
+      }
+    }
+
+    int found = Move.NONE;
+    for (int i = 0; i < n; i++) {
+      int move = buffer[i];
+      int from = Move.from(move);
+      if (Move.to(move) != to || Move.promotion(move) != promotion
+          || (fromColumn >= 0 && (from & 7) != fromColumn) || (fromRow >= 0 && (from >>> 3) != fromRow)
+          || match.getPiece(from).getType() != type) {
+        continue;
+      }
+      if (found != Move.NONE) {
+        throw invalid(san, "ambiguous move");
+      }
+      found = move;
+    }
+    if (found == Move.NONE) {
+      throw invalid(san, "no such legal move");
+    }
+    return found;
+  }
+
+  /**
+   * Writes a legal move in SAN, with its check or mate suffix.
+   * @param match the match, in the position before the move; it is left unchanged.
+   * @param move the encoded move.
+   * @return the SAN text.
+   */
+  public static String format(ChessMatch match, int move) {
+    int from = Move.from(move);
+    int to = Move.to(move);
+    StringBuilder sb = new StringBuilder(8);
+    if (Move.flags(move) == Move.KING_CASTLE) {
+      sb.append("O-O");
+    }
+    else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+      sb.append("O-O-O");
+    }
+    else {
+      ChessPiece piece = match.getPiece(from);
+      if (piece.getType() == PieceType.PAWN) {
+        if (Move.isCapture(move)) {
+          sb.append((char)('a' + (from & 7)));
+        }
+      }
+      else {
+        sb.append("PNBRQK".charAt(piece.getType().ordinal()));
+        appendDisambiguation(sb, match, move, piece.getType());
+      }
+      if (Move.isCapture(move)) {
+        sb.append('x');
+      }
+      sb.append(Move.squareName(to));
+      if (Move.isPromotion(move)) {
+        sb.append('=').append("PNBRQK".charAt(Move.promotion(move).ordinal()));
+      }
+    }
+
+    match.makeMove(move);
+    if (match.getCheck()) {
+      sb.append(match.legalMoves(new int[256]) == 0 ? '#' : '+');
+    }
+    match.unmakeMove();
+    return sb.toString();
+  }
+
+  /**
+   * Adds the file, rank or both of the source square when another piece of the same type can
+   * reach the same target.
+   */
+  private static void appendDisambiguation(StringBuilder sb, ChessMatch match, int move, PieceType type) {
+    int from = Move.from(move);
+    int[] moves = new int[256];
+    int n = match.legalMoves(moves);
+    boolean ambiguous = false;
+    boolean sameColumn = false;
+    boolean sameRow = false;
+    for (int i = 0; i < n; i++) {
+      int other = Move.from(moves[i]);
+      if (other != from && Move.to(moves[i]) == Move.to(move) && match.getPiece(other).getType() == type) {
+        ambiguous = true;
+        sameColumn |= (other & 7) == (from & 7);
+        sameRow |= (other >>> 3) == (from >>> 3);
+      }
+    }
+    if (ambiguous) {
+      if (!sameColumn) {
+        sb.append((char)('a' + (from & 7)));
+      }
+      else if (!sameRow) {
+        sb.append((char)('8' - (from >>> 3)));
+      }
+      else {
+        sb.append(Move.squareName(from));
+      }
+    }
+  }
+
+  private static boolean isCastling(CharSequence san, int end, int length) {
+    if (end != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = san.charAt(i);
+      if ((i % 2 == 0) ? (c != 'O' && c != '0') : c != '-') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int square(char column, char row) {
+    if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+      return -1;
+    }
+    return ('8' - row) * 8 + (column - 'a');
+  }
+
+  private static PieceType pieceType(char c) {
+    return PieceType.values()["PNBRQK".indexOf(c)];
+  }
+
+  private static ChessException invalid(CharSequence san, String reason) {
+    return new ChessException("Invalid move '" + san + "': " + reason);
+  }
+}
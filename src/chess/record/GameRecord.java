@@ -0,0 +1,70 @@
+package chess.record;
+
+import chess.ChessMatch;
+
+import java.util.Arrays;
+
+/**
+ * A stored game: its starting position, its moves and its result.
+ */
+public final class GameRecord {
+
+  private final String startFen;
+  private final int[] moves;
+  private final Result result;
+
+  /**
+   * Creates a record.
+   * @param startFen the starting position, or null for the initial position.
+   * @param moves the encoded moves, as produced by ChessMatch.legalMoves; the array is copied.
+   * @param count the number of moves.
+   * @param result the outcome of the game.
+   */
+  public GameRecord(String startFen, int[] moves, int count, Result result) {
+    this.startFen = startFen;
+    this.moves = Arrays.copyOf(moves, count);
+    this.result = result;
+  }
+
+  /**
+   * Gets the starting position.
+   * @return the FEN text, or null for the initial position.
+   */
+  public String getStartFen() {
+    return startFen;
+  }
+
+  /**
+   * Gets the moves of the game.
+   * @return a copy of the encoded moves.
+   */
+  public int[] getMoves() {
+    return moves.clone();
+  }
+
+  public int getPlies() {
+    return moves.length;
+  }
+
+  public Result getResult() {
+    return result;
+  }
+
+  /**
+   * Builds the match at the starting position of the game.
+   * @return a new match.
+   */
+  public ChessMatch start() {
+    return (startFen == null) ? new ChessMatch() : ChessMatch.fromFen(startFen);
+  }
+
+  /**
+   * Plays the game into a new match.
+   * @return the match in the final position.
+   */
+  public ChessMatch replay() {
+    ChessMatch match = start();
+    match.playMoves(moves, moves.length);
+    return match;
+  }
+}
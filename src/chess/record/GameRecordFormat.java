@@ -0,0 +1,35 @@
+package chess.record;
+
+/**
+ * Constants of the binary game-record format.
+ *
+ * A file starts with the magic bytes "CGR", a version byte and a flags byte, followed by the
+ * games. Each game is a varint body length, the body, and a CRC32 of the body when the file
+ * has the CHECKSUMS flag. The body holds the result ordinal, an info byte (bit 0: a starting
+ * FEN follows as a varint length and ASCII text), the number of plies as a varint, then the
+ * moves.
+ *
+ * By default each move is a single byte: its index in the list returned by
+ * ChessMatch.legalMoves, which never holds more than 218 moves. Those indices depend on the
+ * order of the move generator, which the version byte pins down. With the WIDE_MOVES flag each
+ * move is instead its 16-bit encoding (Move.encode), which is independent of the generator.
+ */
+final class GameRecordFormat {
+
+  static final byte[] MAGIC = {'C', 'G', 'R'};
+  static final int VERSION = 1;
+
+  /** Every game is followed by the CRC32 of its body. */
+  static final int CHECKSUMS = 1;
+
+  /** Moves are stored as 16-bit codes instead of legal-move indices. */
+  static final int WIDE_MOVES = 2;
+
+  static final int HAS_FEN = 1;
+
+  /** The longest game body, far above any real game, so a corrupt length is caught before a buffer is sized by it. */
+  static final int MAX_BODY_BYTES = 1 << 20;
+
+  private GameRecordFormat() {
+  }
+}
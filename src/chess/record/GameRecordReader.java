@@ -0,0 +1,191 @@
+package chess.record;
+
+import chess.ChessMatch;
+import chess.Move;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the games of a binary game-record file one at a time, as described in GameRecordFormat.
+ *
+ * Only one game body is held in memory at a time, so files of any size can be streamed. Every
+ * game is replayed while it is read, and each move, whatever its encoding, must be one of the
+ * legal moves of its position, so a record that passes its checksum but holds a wrong move is
+ * still turned down.
+ */
+public class GameRecordReader implements Closeable {
+
+  private final InputStream in;
+  private final boolean checksums;
+  private final boolean wideMoves;
+  private final int[] legal = new int[256];
+  private final CRC32 crc = new CRC32();
+  private final byte[] stored = new byte[4];
+  private byte[] body = new byte[256];
+  private int[] moves = new int[256];
+  private int cursor;
+  private long games;
+
+  /**
+   * Opens a game-record stream and reads its header.
+   * @param in the stream.
+   * @throws IOException if the stream is not a game-record file of a supported version.
+   */
+  public GameRecordReader(InputStream in) throws IOException {
+    this.in = new BufferedInputStream(in, 1 << 16);
+    for (byte b : GameRecordFormat.MAGIC) {
+      if (this.in.read() != b) {
+        throw new IOException("Not a game-record file");
+      }
+    }
+    int version = this.in.read();
+    if (version != GameRecordFormat.VERSION) {
+      throw new IOException("Unsupported game-record version " + version);
+    }
+    int flags = this.in.read();
+    if (flags < 0) {
+      throw new EOFException("Truncated game-record header");
+    }
+    checksums = (flags & GameRecordFormat.CHECKSUMS) != 0;
+    wideMoves = (flags & GameRecordFormat.WIDE_MOVES) != 0;
+  }
+
+  /**
+   * Reads the next game.
+   * @return the game, or null at the end of the stream.
+   * @throws IOException if the game is truncated, fails its checksum or holds an invalid move.
+   */
+  public GameRecord next() throws IOException {
+    int first = in.read();
+    if (first < 0) {
+      return null;
+    }
+    games++;
+    int length = readVarint(first);
+    if (length < 0 || length > GameRecordFormat.MAX_BODY_BYTES) {
+      throw new IOException("Game " + games + ": bad length " + length);
+    }
+    if (body.length < length) {
+      body = new byte[Math.max(length, body.length * 2)];
+    }
+    readFully(body, length);
+    if (checksums) {
+      readFully(stored, 4);
+      crc.reset();
+      crc.update(body, 0, length);
+      int expected = ((stored[0] & 0xFF) << 24) | ((stored[1] & 0xFF) << 16) | ((stored[2] & 0xFF) << 8) | (stored[3] & 0xFF);
+      if ((int)crc.getValue() != expected) {
+        throw new IOException("Game " + games + ": checksum mismatch");
+      }
+    }
+
+    cursor = 0;
+    int resultOrdinal = get(length);
+    if (resultOrdinal >= Result.values().length) {
+      throw new IOException("Game " + games + ": bad result " + resultOrdinal);
+    }
+    Result result = Result.values()[resultOrdinal];
+    String fen = null;
+    if ((get(length) & GameRecordFormat.HAS_FEN) != 0) {
+      int fenLength = getVarint(length);
+      if (cursor + fenLength > length) {
+        throw new IOException("Game " + games + ": truncated position");
+      }
+      fen = new String(body, cursor, fenLength, StandardCharsets.US_ASCII);
+      cursor += fenLength;
+    }
+    int plies = getVarint(length);
+    if (plies < 0 || plies > (length - cursor) / (wideMoves ? 2 : 1)) {
+      throw new IOException("Game " + games + ": bad ply count " + plies);
+    }
+    if (moves.length < plies) {
+      moves = new int[Math.max(plies, moves.length * 2)];
+    }
+
+    ChessMatch match = (fen == null) ? new ChessMatch() : ChessMatch.fromFen(fen);
+    for (int i = 0; i < plies; i++) {
+      int n = match.legalMoves(legal);
+      if (wideMoves) {
+        int move = (get(length) << 8) | get(length);
+        if (!isLegal(move, n)) {
+          throw new IOException("Game " + games + ", ply " + (i + 1) + ": illegal move " + Move.toString(move));
+        }
+        moves[i] = move;
+      }
+      else {
+        int index = get(length);
+        if (index >= n) {
+          throw new IOException("Game " + games + ", ply " + (i + 1) + ": no legal move " + index);
+        }
+        moves[i] = legal[index];
+      }
+      match.makeMove(moves[i]);
+    }
+    return new GameRecord(fen, moves, plies, result);
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Checks if a move is among the first entries of the legal-move buffer.
+   */
+  private boolean isLegal(int move, int count) {
+    for (int i = 0; i < count; i++) {
+      if (legal[i] == move) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int get(int length) throws IOException {
+    if (cursor >= length) {
+      throw new IOException("Game " + games + ": truncated record");
+    }
+    return body[cursor++] & 0xFF;
+  }
+
+  private int getVarint(int length) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = get(length);
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Game " + games + ": bad varint");
+  }
+
+  private int readVarint(int first) throws IOException {
+    int value = first & 0x7F;
+    int b = first;
+    for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+      if (shift >= 32 || (b = in.read()) < 0) {
+        throw new IOException("Game " + games + ": bad length");
+      }
+      value |= (b & 0x7F) << shift;
+    }
+    return value;
+  }
+
+  private void readFully(byte[] buffer, int length) throws IOException {
+    int read = 0;
+    while (read < length) {
+      int n = in.read(buffer, read, length - read);
+      if (n < 0) {
+        throw new EOFException("Game " + games + " is truncated");
+      }
+      read += n;
+    }
+  }
+}
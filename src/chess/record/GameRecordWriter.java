@@ -0,0 +1,148 @@
+package chess.record;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Writes games in the binary format described in GameRecordFormat.
+ */
+public class GameRecordWriter implements Closeable {
+
+  private final OutputStream out;
+  private final boolean checksums;
+  private final boolean wideMoves;
+  private final int[] legal = new int[256];
+  private final CRC32 crc = new CRC32();
+  private byte[] body = new byte[256];
+  private int length;
+
+  /**
+   * Starts a file of compact records, one byte per move, with checksums.
+   * @param out the stream to write to.
+   * @throws IOException if the file header cannot be written.
+   */
+  public GameRecordWriter(OutputStream out) throws IOException {
+    this(out, true, false);
+  }
+
+  /**
+   * Starts a file of records.
+   * @param out the stream to write to.
+   * @param checksums true to follow every game with a CRC32.
+   * @param wideMoves true to store 16-bit move codes instead of legal-move indices.
+   * @throws IOException if the file header cannot be written.
+   */
+  public GameRecordWriter(OutputStream out, boolean checksums, boolean wideMoves) throws IOException {
+    this.out = new BufferedOutputStream(out, 1 << 16);
+    this.checksums = checksums;
+    this.wideMoves = wideMoves;
+    this.out.write(GameRecordFormat.MAGIC);
+    this.out.write(GameRecordFormat.VERSION);
+    this.out.write((checksums ? GameRecordFormat.CHECKSUMS : 0) | (wideMoves ? GameRecordFormat.WIDE_MOVES : 0));
+  }
+
+  /**
+   * Writes a game.
+   * @param game the game.
+   * @throws IOException if the game cannot be written.
+   * @throws ChessException if a move of the game is not legal.
+   */
+  public void write(GameRecord game) throws IOException {
+    int[] moves = game.getMoves();
+    length = 0;
+    put(game.getResult().ordinal());
+    String fen = game.getStartFen();
+    put(fen == null ? 0 : GameRecordFormat.HAS_FEN);
+    if (fen != null) {
+      byte[] text = fen.getBytes(StandardCharsets.US_ASCII);
+      putVarint(text.length);
+      for (byte b : text) {
+        put(b);
+      }
+    }
+    putVarint(moves.length);
+    if (wideMoves) {
+      for (int move : moves) {
+        put(move >>> 8);
+        put(move);
+      }
+    }
+    else {
+      ChessMatch match = game.start();
+      for (int i = 0; i < moves.length; i++) {
+        put(indexOf(match, moves[i], i));
+        match.makeMove(moves[i]);
+      }
+    }
+
+    if (length > GameRecordFormat.MAX_BODY_BYTES) {
+      throw new IOException("Game of " + moves.length + " plies is too long for a game record");
+    }
+    writeVarint(length);
+    out.write(body, 0, length);
+    if (checksums) {
+      crc.reset();
+      crc.update(body, 0, length);
+      int value = (int)crc.getValue();
+      out.write(value >>> 24);
+      out.write(value >>> 16);
+      out.write(value >>> 8);
+      out.write(value);
+    }
+  }
+
+  /**
+   * Writes any buffered bytes.
+   * @throws IOException if they cannot be written.
+   */
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private int indexOf(ChessMatch match, int move, int ply) {
+    int n = match.legalMoves(legal);
+    for (int i = 0; i < n; i++) {
+      if (legal[i] == move) {
+        return i;
+      }
+    }
+    throw new ChessException("Move " + (ply + 1) + " (" + Move.toString(move) + ") is not legal");
+  }
+
+  private void put(int b) {
+    if (length == body.length) {
+      body = Arrays.copyOf(body, body.length * 2);
+    }
+    body[length++] = (byte)b;
+  }
+
+  private void putVarint(int value) {
+    while ((value & ~0x7F) != 0) {
+      put((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    put(value);
+  }
+
+  private void writeVarint(int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+}
@@ -0,0 +1,36 @@
+package chess.record;
+
+/**
+ * The outcome of a game, with its PGN notation.
+ */
+public enum Result {
+  UNFINISHED("*"),
+  WHITE_WINS("1-0"),
+  BLACK_WINS("0-1"),
+  DRAW("1/2-1/2");
+
+  private final String notation;
+
+  Result(String notation) {
+    this.notation = notation;
+  }
+
+  /**
+   * Finds the result written in PGN notation.
+   * @param notation the text, such as "1-0".
+   * @return the result, or UNFINISHED for anything else.
+   */
+  public static Result fromNotation(String notation) {
+    for (Result result : values()) {
+      if (result.notation.equals(notation)) {
+        return result;
+      }
+    }
+    return UNFINISHED;
+  }
+
+  @Override
+  public String toString() {
+    return notation;
+  }
+}
@@ -0,0 +1,272 @@
+package chess.tablebase;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Perfect endgame knowledge from the tables of a directory, as written by TablebaseGenerator.
+ *
+ * Every table file is memory-mapped when the tablebase is opened, so a probe reads one byte of
+ * the page cache and never blocks on anything but the disk. Probes may run on many threads at
+ * once, each with scratch buffers of its own, so a probe allocates nothing. Distances to mate
+ * ignore the fifty-move rule. The tables only hold positions where castling and "en passant" are
+ * no longer possible, so positions with either are not found.
+ */
+public class Tablebase {
+
+  /** The score of a position where the side to move mates at once; see probe(). */
+  public static final int MATE = 1000;
+
+  /** The result of probe() for a position that no table covers. */
+  public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+  /**
+   * One table: its material and its mapped positions.
+   */
+  static final class Table {
+    final String name;
+    final PieceType[] types; // The pieces after the two kings, in table order
+    final Color[] colors;
+    final int code;
+    final int swappedCode;
+    final MappedByteBuffer data;
+
+    Table(String name, PieceType[] types, Color[] colors, MappedByteBuffer data) {
+      this.name = name;
+      this.types = types;
+      this.colors = colors;
+      this.code = TablebaseFormat.materialCode(types, colors, false);
+      this.swappedCode = TablebaseFormat.materialCode(types, colors, true);
+      this.data = data;
+    }
+
+    int pieces() {
+      return types.length + 2;
+    }
+  }
+
+  private static final ThreadLocal<int[]> squareBuffers = ThreadLocal.withInitial(() -> new int[TablebaseFormat.MAX_PIECES]);
+  private static final ThreadLocal<int[]> moveBuffers = ThreadLocal.withInitial(() -> new int[256]);
+
+  private volatile Table[] tables = new Table[0];
+  private volatile int maxPieces;
+
+  /**
+   * Opens every table of a directory.
+   * @param directory the directory of the .ctb files.
+   * @throws IOException if a table cannot be read or is not a valid table.
+   */
+  public Tablebase(Path directory) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TablebaseFormat.EXTENSION)) {
+      for (Path file : files) {
+        add(file);
+      }
+    }
+  }
+
+  /**
+   * Maps a table file and adds it to the tablebase. Tables already present are replaced.
+   * @param file the table.
+   * @throws IOException if the file cannot be read or is not a valid table.
+   */
+  synchronized void add(Path file) throws IOException {
+    Table table;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      table = readHeader(file, data, channel.size());
+    }
+    List<Table> list = new ArrayList<>(Arrays.asList(tables));
+    list.removeIf(t -> t.code == table.code);
+    list.add(table);
+    tables = list.toArray(new Table[0]);
+    maxPieces = Math.max(maxPieces, table.pieces());
+  }
+
+  private static Table readHeader(Path file, MappedByteBuffer data, long size) throws IOException {
+    for (int i = 0; i < TablebaseFormat.MAGIC.length; i++) {
+      if (size < TablebaseFormat.HEADER_BYTES || data.get(i) != TablebaseFormat.MAGIC[i]) {
+        throw new IOException("Not a tablebase file: " + file);
+      }
+    }
+    if (data.get(3) != TablebaseFormat.VERSION) {
+      throw new IOException("Unsupported tablebase version " + data.get(3) + ": " + file);
+    }
+    int pieces = data.get(4);
+    if (pieces < 3 || pieces > TablebaseFormat.MAX_PIECES || size != TablebaseFormat.HEADER_BYTES + (long)TablebaseFormat.size(pieces)) {
+      throw new IOException("Corrupt tablebase file: " + file);
+    }
+    PieceType[] types = new PieceType[pieces - 2];
+    Color[] colors = new Color[pieces - 2];
+    for (int i = 0; i < types.length; i++) {
+      int code = data.get(7 + i);
+      types[i] = PieceType.values()[code & 7];
+      colors[i] = Color.values()[code >>> 3];
+    }
+    return new Table(name(types, colors), types, colors, data);
+  }
+
+  /**
+   * Gets the names of the tables, such as "KQvKR".
+   * @return the names, in no particular order.
+   */
+  public List<String> getTables() {
+    List<String> names = new ArrayList<>();
+    for (Table table : tables) {
+      names.add(table.name);
+    }
+    return names;
+  }
+
+  /**
+   * Gets the number of pieces of the largest table.
+   * @return the piece count, kings included, or 0 if there is no table.
+   */
+  public int getMaxPieces() {
+    return maxPieces;
+  }
+
+  /**
+   * Looks up the current position of a match. Bare kings are a draw without a table.
+   * @param match the match.
+   * @return 0 for a draw, MATE - n when the side to move mates in n plies, -(MATE - n) when it
+   *     is mated in n plies, or NOT_FOUND if no table covers the position or castling or
+   *     "en passant" is still possible.
+   */
+  public int probe(ChessMatch match) {
+    int code = 0;
+    int count = 2;
+    for (Color color : Color.values()) {
+      for (PieceType type : PieceType.values()) {
+        long pieces = match.getBitboard(color, type);
+        if (type != PieceType.KING && pieces != 0) {
+          int n = Long.bitCount(pieces);
+          count += n;
+          code += n << (3 * ((color == Color.WHITE ? 0 : 5) + type.ordinal()));
+        }
+      }
+    }
+    if (count == 2) {
+      return 0;
+    }
+    if (count > maxPieces || match.getCastlingRights() != 0 || match.getEnPassantVulnerable() != null) {
+      return NOT_FOUND;
+    }
+    for (Table table : tables) {
+      if (table.code == code || table.swappedCode == code) {
+        return probe(table, match, table.code != code, squareBuffers.get());
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * Gets the outcome of the current position of a match.
+   * @param match the match.
+   * @return the outcome for the side to move, or null if no table covers the position.
+   */
+  public Wdl probeWdl(ChessMatch match) {
+    int score = probe(match);
+    if (score == NOT_FOUND) {
+      return null;
+    }
+    return (score > 0) ? Wdl.WIN : (score < 0) ? Wdl.LOSS : Wdl.DRAW;
+  }
+
+  /**
+   * Gets the distance to mate of the current position of a match.
+   * @param match the match.
+   * @return the plies to mate with perfect play, 0 for a draw or a position already mated, or
+   *     -1 if no table covers the position.
+   */
+  public int probeDtm(ChessMatch match) {
+    int score = probe(match);
+    if (score == NOT_FOUND) {
+      return -1;
+    }
+    return (score == 0) ? 0 : MATE - Math.abs(score);
+  }
+
+  /**
+   * Finds a move that keeps the best outcome: the fastest mate when winning, the longest
+   * defence when losing, and any drawing move otherwise.
+   * @param match the match; it is left in its original position.
+   * @return the encoded move, or Move.NONE if no table covers the position or there is no legal move.
+   */
+  public int bestMove(ChessMatch match) {
+    if (match.getCheckMate() || probe(match) == NOT_FOUND) {
+      return Move.NONE;
+    }
+    int[] moves = moveBuffers.get();
+    int n = match.legalMoves(moves);
+    int best = Move.NONE;
+    int bestScore = Integer.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      match.makeMove(moves[i]);
+      int score = probe(match);
+      match.unmakeMove();
+      if (score != NOT_FOUND && -score > bestScore) {
+        best = moves[i];
+        bestScore = -score;
+      }
+    }
+    return best;
+  }
+
+  private static int probe(Table table, ChessMatch match, boolean swapped, int[] squares) {
+    Color white = swapped ? Color.BLACK : Color.WHITE;
+    Color black = swapped ? Color.WHITE : Color.BLACK;
+    squares[0] = Long.numberOfTrailingZeros(match.getBitboard(white, PieceType.KING));
+    squares[1] = Long.numberOfTrailingZeros(match.getBitboard(black, PieceType.KING));
+    long used = 0;
+    for (int i = 0; i < table.types.length; i++) {
+      Color color = (table.colors[i] == Color.WHITE) ? white : black;
+      int square = Long.numberOfTrailingZeros(match.getBitboard(color, table.types[i]) & ~used);
+      used |= 1L << square;
+      squares[i + 2] = square;
+    }
+    Color toMove = match.getCurrentPlayer();
+    if (match.getCheckMate()) {
+      toMove = (toMove == Color.WHITE) ? Color.BLACK : Color.WHITE; // The turn stays with the winner
+    }
+    int side = (toMove == white) ? 0 : 1;
+    int value = table.data.get(TablebaseFormat.HEADER_BYTES + TablebaseFormat.index(side, squares, table.pieces())) & 0xFF;
+    return score(value);
+  }
+
+  /**
+   * Converts a stored byte into a score.
+   */
+  static int score(int value) {
+    if (value == 0) {
+      return 0;
+    }
+    int plies = value - 1;
+    return ((plies & 1) != 0) ? MATE - plies : -(MATE - plies);
+  }
+
+  /**
+   * Writes the name of a material balance, such as "KQvKR".
+   */
+  static String name(PieceType[] types, Color[] colors) {
+    StringBuilder white = new StringBuilder("K");
+    StringBuilder black = new StringBuilder("K");
+    for (int i = 0; i < types.length; i++) {
+      char letter = "PNBRQK".charAt(types[i].ordinal());
+      (colors[i] == Color.WHITE ? white : black).append(letter);
+    }
+    return white + "v" + black;
+  }
+}
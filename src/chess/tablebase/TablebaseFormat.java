@@ -0,0 +1,168 @@
+package chess.tablebase;
+
+import chess.Color;
+import chess.PieceType;
+
+/**
+ * Constants and index arithmetic of the tablebase file format.
+ *
+ * A table covers one pawnless material balance, such as KQvKR, with the stronger side as white.
+ * The file starts with the magic bytes "CTB", a version byte, the number of pieces and one byte
+ * per piece (color ordinal << 3 | type ordinal): the white king, the black king, then the other
+ * pieces in table order. The header is padded to HEADER_BYTES and followed by one byte per
+ * position.
+ *
+ * A position is indexed by the side to move, the white king and every other piece, 64 squares
+ * each. Without pawns or castling rights the board can be mirrored and turned freely, so every
+ * position is first transformed to put the white king in the a1-d1-d4 triangle, which takes 10
+ * values instead of 64; a table of n pieces then holds 2 * 10 * 64^(n - 1) positions.
+ *
+ * The byte of a position is 0 for a draw, and otherwise the distance to mate in plies plus one.
+ * Wins for the side to move take an odd number of plies and losses an even number, so the
+ * parity of the distance also gives the outcome. Illegal positions, and the positions that are
+ * mirror images of another index (see canonical()), are stored as draws.
+ */
+final class TablebaseFormat {
+
+  static final byte[] MAGIC = {'C', 'T', 'B'};
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 16;
+  static final String EXTENSION = ".ctb";
+
+  /** The largest table: 5 pieces need 335 million positions, still within an int index. */
+  static final int MAX_PIECES = 5;
+
+  static final int FLIP_FILE = 1;
+  static final int FLIP_RANK = 2;
+  static final int TRANSPOSE = 4;
+
+  /** The index of each square in the a1-d1-d4 triangle, or -1 outside it. */
+  private static final int[] TRIANGLE = new int[64];
+
+  static {
+    int n = 0;
+    for (int square = 0; square < 64; square++) {
+      TRIANGLE[square] = -1;
+    }
+    for (int file = 0; file < 4; file++) {
+      for (int rank = 0; rank <= file; rank++) {
+        TRIANGLE[(7 - rank) * 8 + file] = n++;
+      }
+    }
+  }
+
+  private TablebaseFormat() {
+  }
+
+  /**
+   * Gets the number of positions of a table.
+   * @param pieces the number of pieces, kings included.
+   * @return the position count.
+   */
+  static int size(int pieces) {
+    return 2 * 10 << (6 * (pieces - 1));
+  }
+
+  /**
+   * Gets the transformation that brings a position into its canonical form: the white king in
+   * the triangle and, when the king is on the a1-d4 diagonal, which the reflection leaves in
+   * place, the first piece off the diagonal below it. Every mirror image of a position has the
+   * same canonical form.
+   * @param squares the squares of the pieces in table order, the white king first.
+   * @param count the number of pieces.
+   * @return a combination of FLIP_FILE, FLIP_RANK and TRANSPOSE, 0 if the position is canonical.
+   */
+  static int canonical(int[] squares, int count) {
+    int transform = 0;
+    if ((squares[0] & 7) > 3) {
+      transform |= FLIP_FILE;
+    }
+    if ((squares[0] >>> 3) < 4) {
+      transform |= FLIP_RANK;
+    }
+    for (int i = 0; i < count; i++) {
+      int square = transform(squares[i], transform);
+      int rank = 7 - (square >>> 3);
+      int file = square & 7;
+      if (rank != file) {
+        return (rank > file) ? transform | TRANSPOSE : transform;
+      }
+    }
+    return transform;
+  }
+
+  /**
+   * Applies a transformation of the board to a square: the flips first, then the reflection
+   * in the a1-h8 diagonal.
+   * @param square the square, in ChessBoard numbering.
+   * @param transform a combination of FLIP_FILE, FLIP_RANK and TRANSPOSE.
+   * @return the transformed square.
+   */
+  static int transform(int square, int transform) {
+    if ((transform & FLIP_FILE) != 0) {
+      square ^= 7;
+    }
+    if ((transform & FLIP_RANK) != 0) {
+      square ^= 56;
+    }
+    if ((transform & TRANSPOSE) != 0) {
+      int row = square >>> 3;
+      int column = square & 7;
+      square = (7 - column) * 8 + (7 - row);
+    }
+    return square;
+  }
+
+  /**
+   * Computes the index of a position, the same for all its mirror images.
+   * @param side 0 if white is to move, 1 if black is.
+   * @param squares the squares of the pieces in table order, the white king first.
+   * @param count the number of pieces.
+   * @return the index.
+   */
+  static int index(int side, int[] squares, int count) {
+    int transform = canonical(squares, count);
+    int index = side * 10 + TRIANGLE[transform(squares[0], transform)];
+    for (int i = 1; i < count; i++) {
+      index = (index << 6) | transform(squares[i], transform);
+    }
+    return index;
+  }
+
+  /**
+   * Finds the position of an index, with the white king in the triangle.
+   * @param index the index.
+   * @param squares receives the squares of the pieces, in table order.
+   * @param count the number of pieces.
+   * @return 0 if white is to move, 1 if black is.
+   */
+  static int decode(int index, int[] squares, int count) {
+    for (int i = count - 1; i >= 1; i--) {
+      squares[i] = index & 63;
+      index >>>= 6;
+    }
+    int triangle = index % 10;
+    for (int square = 0; square < 64; square++) {
+      if (TRIANGLE[square] == triangle) {
+        squares[0] = square;
+      }
+    }
+    return index / 10;
+  }
+
+  /**
+   * Packs the pieces of a side into a material code, three bits per piece type and color.
+   * @param types the types of the pieces, kings excluded.
+   * @param colors the colors of the pieces.
+   * @param swap true to count each piece for the other color.
+   * @return the code.
+   */
+  static int materialCode(PieceType[] types, Color[] colors, boolean swap) {
+    int code = 0;
+    for (int i = 0; i < types.length; i++) {
+      boolean white = (colors[i] == Color.WHITE) != swap;
+      code += 1 << (3 * ((white ? 0 : 5) + types[i].ordinal()));
+    }
+    return code;
+  }
+}
@@ -0,0 +1,453 @@
+package chess.tablebase;
+
+import chess.Attacks;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Builds tablebase files by retrograde analysis.
+ *
+ * The first pass visits every position of the table once, in parallel, and asks ChessMatch for
+ * its legal moves: checkmates are lost at once, stalemates drawn, and captures are resolved
+ * from the smaller tables, which are generated first when they are missing. Every position
+ * also gets a counter of the moves not yet known to lose.
+ *
+ * The second pass works outwards from the mates, one distance at a time. The predecessors of a
+ * lost position are won one ply further away; for the predecessors of a won position the
+ * counter goes down, and the position is lost when it reaches zero, since every move then
+ * loses. Processing the distances in order gives the shortest wins and the longest losses.
+ * Predecessors are found by moving pieces backwards, which without pawns is the same as
+ * moving them forwards. Each position of a table stands for its 8 mirror images, so the
+ * backward moves are generated from every distinct image, and a predecessor is kept only when
+ * it is already in canonical form; that way every forward move of a position is
+ * matched by exactly one backward move, as the counters need. Positions never resolved are draws.
+ *
+ * A 4-piece table takes a few million positions and seconds to build; 5-piece tables need
+ * about 1 GB of heap and a long time.
+ */
+public class TablebaseGenerator {
+
+  private static final byte INVALID = -1;
+
+  /** The usual material values, only used to name the smaller tables with white as the stronger side. */
+  private static final int[] VALUES = {1, 3, 3, 5, 9, 0};
+
+  private final Path directory;
+  private final Tablebase tablebase;
+
+  /**
+   * Creates a generator writing into a directory; the tables already there are reused.
+   * @param directory the directory of the tables.
+   * @throws IOException if the directory cannot be created or holds an invalid table.
+   */
+  public TablebaseGenerator(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.tablebase = new Tablebase(directory);
+  }
+
+  /**
+   * Gets the tablebase of the directory, which holds every table generated so far.
+   * @return the tablebase.
+   */
+  public Tablebase getTablebase() {
+    return tablebase;
+  }
+
+  /**
+   * Generates a table and the smaller tables it depends on, unless they exist.
+   * @param name the material, such as "KQvKR"; the side with more material should be white.
+   * @return true if the table was generated, false if it already existed.
+   * @throws IOException if a table cannot be written.
+   * @throws IllegalArgumentException if the name is not a pawnless table of 3 to 5 pieces.
+   */
+  public boolean generate(String name) throws IOException {
+    PieceType[] types = parseTypes(name);
+    Color[] colors = parseColors(name);
+    if (covers(types, colors)) {
+      return false;
+    }
+    // The tables reached by a capture come first; without pieces left it is a draw
+    for (int captured = 0; types.length > 1 && captured < types.length; captured++) {
+      PieceType[] subTypes = new PieceType[types.length - 1];
+      Color[] subColors = new Color[types.length - 1];
+      for (int i = 0, j = 0; i < types.length; i++) {
+        if (i != captured) {
+          subTypes[j] = types[i];
+          subColors[j++] = colors[i];
+        }
+      }
+      if (!covers(subTypes, subColors)) {
+        generate(Tablebase.name(subTypes, strongerFirst(subTypes, subColors)));
+      }
+    }
+    new Build(types, colors).run();
+    return true;
+  }
+
+  /**
+   * Swaps the colors of a material balance if black has more material than white.
+   */
+  private static Color[] strongerFirst(PieceType[] types, Color[] colors) {
+    int balance = 0;
+    for (int i = 0; i < types.length; i++) {
+      int value = VALUES[types[i].ordinal()];
+      balance += (colors[i] == Color.WHITE) ? value : -value;
+    }
+    if (balance >= 0) {
+      return colors;
+    }
+    Color[] swapped = new Color[colors.length];
+    for (int i = 0; i < colors.length; i++) {
+      swapped[i] = (colors[i] == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+    return swapped;
+  }
+
+  private boolean covers(PieceType[] types, Color[] colors) {
+    int code = TablebaseFormat.materialCode(types, colors, false);
+    for (String table : tablebase.getTables()) {
+      PieceType[] t = parseTypes(table);
+      Color[] c = parseColors(table);
+      if (TablebaseFormat.materialCode(t, c, false) == code || TablebaseFormat.materialCode(t, c, true) == code) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads the piece types of a table name, kings excluded, white pieces first.
+   */
+  private static PieceType[] parseTypes(String name) {
+    int v = name.indexOf('v');
+    if (v < 1 || name.charAt(0) != 'K' || v + 1 >= name.length() || name.charAt(v + 1) != 'K') {
+      throw new IllegalArgumentException("Invalid table name '" + name + "': expected a name such as KQvKR");
+    }
+    int count = name.length() - 3;
+    if (count < 1 || count + 2 > TablebaseFormat.MAX_PIECES) {
+      throw new IllegalArgumentException("Tables hold 3 to " + TablebaseFormat.MAX_PIECES + " pieces: " + name);
+    }
+    PieceType[] types = new PieceType[count];
+    int j = 0;
+    for (int i = 1; i < name.length(); i++) {
+      if (i == v || i == v + 1) {
+        continue;
+      }
+      int index = "NBRQ".indexOf(name.charAt(i));
+      if (index < 0) {
+        throw new IllegalArgumentException("Invalid piece '" + name.charAt(i) + "' in " + name + ": tables are pawnless");
+      }
+      types[j++] = PieceType.values()[PieceType.KNIGHT.ordinal() + index];
+    }
+    return types;
+  }
+
+  private static Color[] parseColors(String name) {
+    int v = name.indexOf('v');
+    Color[] colors = new Color[name.length() - 3];
+    for (int i = 0; i < colors.length; i++) {
+      colors[i] = (i < v - 1) ? Color.WHITE : Color.BLACK;
+    }
+    return colors;
+  }
+
+  /**
+   * The working state of one table.
+   */
+  private final class Build {
+    final PieceType[] types; // Every piece, the two kings first
+    final Color[] colors;
+    final int pieces;
+    final int size;
+    final byte[] result; // As stored in the file: 0, or the distance in plies plus one
+    final byte[] remaining; // Moves not yet known to lose, or INVALID
+    final byte[] lossHint; // The longest loss through a capture, plus one
+    final List<int[]> buckets = new ArrayList<>();
+    final int[] bucketSizes = new int[256];
+
+    Build(PieceType[] extraTypes, Color[] extraColors) {
+      pieces = extraTypes.length + 2;
+      types = new PieceType[pieces];
+      colors = new Color[pieces];
+      types[0] = PieceType.KING;
+      colors[0] = Color.WHITE;
+      types[1] = PieceType.KING;
+      colors[1] = Color.BLACK;
+      System.arraycopy(extraTypes, 0, types, 2, extraTypes.length);
+      System.arraycopy(extraColors, 0, colors, 2, extraColors.length);
+      size = TablebaseFormat.size(pieces);
+      result = new byte[size];
+      remaining = new byte[size];
+      lossHint = new byte[size];
+      for (int i = 0; i < 256; i++) {
+        buckets.add(new int[16]);
+      }
+    }
+
+    void run() throws IOException {
+      int chunk = 1 << 12;
+      IntStream.range(0, (size + chunk - 1) / chunk).parallel().forEach(c -> {
+        int[] squares = new int[pieces];
+        int[] moves = new int[256];
+        StringBuilder fen = new StringBuilder(80);
+        for (int index = c * chunk; index < Math.min(size, (c + 1) * chunk); index++) {
+          visit(index, squares, moves, fen);
+        }
+      });
+      for (int index = 0; index < size; index++) {
+        if (result[index] != 0) {
+          push((result[index] & 0xFF) - 1, index);
+        }
+      }
+
+      int[] squares = new int[pieces];
+      int[] image = new int[pieces];
+      long[] seen = new long[8];
+      for (int plies = 0; plies < 255; plies++) {
+        for (int k = 0; k < bucketSizes[plies]; k++) {
+          int index = buckets.get(plies)[k];
+          if ((result[index] & 0xFF) == plies + 1) {
+            retract(index, plies, squares, image, seen);
+          }
+        }
+        buckets.set(plies, null);
+      }
+      write();
+    }
+
+    /**
+     * First pass: resolves mates, stalemates and captures, and counts the other moves.
+     */
+    void visit(int index, int[] squares, int[] moves, StringBuilder fen) {
+      int side = TablebaseFormat.decode(index, squares, pieces);
+      long occupied = 0;
+      for (int i = 0; i < pieces; i++) {
+        if ((occupied & (1L << squares[i])) != 0) {
+          remaining[index] = INVALID;
+          return;
+        }
+        occupied |= 1L << squares[i];
+      }
+      if (TablebaseFormat.canonical(squares, pieces) != 0) {
+        remaining[index] = INVALID; // Stored under the index of its canonical form
+        return;
+      }
+      Color toMove = (side == 0) ? Color.WHITE : Color.BLACK;
+      if (attacked(squares, squares[toMove == Color.WHITE ? 1 : 0], toMove, occupied)) {
+        remaining[index] = INVALID; // The side that just moved cannot be in check
+        return;
+      }
+
+      ChessMatch match = ChessMatch.fromFen(fen(squares, toMove, fen));
+      if (match.getCheckMate()) {
+        result[index] = 1;
+        return;
+      }
+      int n = match.legalMoves(moves);
+      int win = Integer.MAX_VALUE;
+      int loss = 0;
+      int count = 0;
+      for (int i = 0; i < n; i++) {
+        if (!Move.isCapture(moves[i])) {
+          count++;
+          continue;
+        }
+        match.makeMove(moves[i]);
+        int score = tablebase.probe(match);
+        match.unmakeMove();
+        if (score == Tablebase.NOT_FOUND) {
+          throw new IllegalStateException("No table for a capture from " + fen);
+        }
+        if (score < 0) {
+          win = Math.min(win, Tablebase.MATE + score + 1);
+        }
+        else if (score > 0) {
+          loss = Math.max(loss, Tablebase.MATE - score + 1);
+        }
+        else {
+          count++;
+        }
+      }
+      remaining[index] = (byte)count;
+      if (win != Integer.MAX_VALUE) {
+        result[index] = (byte)(win + 1);
+      }
+      else if (n > 0 && count == 0) {
+        result[index] = (byte)(loss + 1); // Every move is a capture that loses
+      }
+      else {
+        lossHint[index] = (byte)(loss + 1);
+      }
+    }
+
+    /**
+     * Second pass: updates the predecessors of a position resolved at the given distance.
+     */
+    void retract(int index, int plies, int[] squares, int[] image, long[] seen) {
+      int side = TablebaseFormat.decode(index, squares, pieces);
+      Color mover = (side == 0) ? Color.BLACK : Color.WHITE; // The side that moved into this position
+      boolean lost = (plies & 1) == 0;
+      int images = 0;
+      for (int transform = 0; transform < 8; transform++) {
+        long key = 0;
+        for (int i = 0; i < pieces; i++) {
+          image[i] = TablebaseFormat.transform(squares[i], transform);
+          key = (key << 6) | image[i];
+        }
+        boolean duplicate = false;
+        for (int i = 0; i < images; i++) {
+          duplicate |= seen[i] == key;
+        }
+        if (duplicate) {
+          continue;
+        }
+        seen[images++] = key;
+
+        long occupied = 0;
+        for (int i = 0; i < pieces; i++) {
+          occupied |= 1L << image[i];
+        }
+        for (int piece = 0; piece < pieces; piece++) {
+          if (colors[piece] != mover) {
+            continue;
+          }
+          int from = image[piece];
+          long targets = attacks(types[piece], from, occupied) & ~occupied;
+          while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            image[piece] = to;
+            if (TablebaseFormat.canonical(image, pieces) == 0) {
+              long before = occupied ^ (1L << from) ^ (1L << to);
+              int opponentKing = image[mover == Color.WHITE ? 1 : 0];
+              if (!attacked(image, opponentKing, mover, before)) {
+                update(TablebaseFormat.index(1 - side, image, pieces), plies, lost);
+              }
+            }
+          }
+          image[piece] = from;
+        }
+      }
+    }
+
+    void update(int predecessor, int plies, boolean lost) {
+      int current = result[predecessor] & 0xFF;
+      if (lost) {
+        if (current == 0 || ((current - 1) & 1) == 1 && current - 1 > plies + 1) {
+          result[predecessor] = (byte)(plies + 2);
+          push(plies + 1, predecessor);
+        }
+      }
+      else if (current == 0 && remaining[predecessor] != INVALID && --remaining[predecessor] == 0) {
+        int loss = Math.max(plies + 1, (lossHint[predecessor] & 0xFF) - 1);
+        result[predecessor] = (byte)(loss + 1);
+        push(loss, predecessor);
+      }
+    }
+
+    void push(int plies, int index) {
+      if (plies >= 254) {
+        throw new IllegalStateException("A distance to mate of " + plies + " plies does not fit in a table");
+      }
+      int[] bucket = buckets.get(plies);
+      if (bucketSizes[plies] == bucket.length) {
+        bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        buckets.set(plies, bucket);
+      }
+      bucket[bucketSizes[plies]++] = index;
+    }
+
+    /**
+     * Checks if any piece of a color attacks a square.
+     */
+    boolean attacked(int[] squares, int square, Color by, long occupied) {
+      for (int i = 0; i < pieces; i++) {
+        if (colors[i] == by && (attacks(types[i], squares[i], occupied) & (1L << square)) != 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    String fen(int[] squares, Color toMove, StringBuilder fen) {
+      char[] board = new char[64];
+      for (int i = 0; i < pieces; i++) {
+        char c = "pnbrqk".charAt(types[i].ordinal());
+        board[squares[i]] = (colors[i] == Color.WHITE) ? Character.toUpperCase(c) : c;
+      }
+      fen.setLength(0);
+      for (int row = 0; row < 8; row++) {
+        int empty = 0;
+        for (int column = 0; column < 8; column++) {
+          char c = board[row * 8 + column];
+          if (c == 0) {
+            empty++;
+            continue;
+          }
+          if (empty > 0) {
+            fen.append((char)('0' + empty));
+            empty = 0;
+          }
+          fen.append(c);
+        }
+        if (empty > 0) {
+          fen.append((char)('0' + empty));
+        }
+        if (row < 7) {
+          fen.append('/');
+        }
+      }
+      return fen.append(toMove == Color.WHITE ? " w - - 0 1" : " b - - 0 1").toString();
+    }
+
+    void write() throws IOException {
+      Path file = directory.resolve(Tablebase.name(extra(types), extra(colors)) + TablebaseFormat.EXTENSION);
+      ByteBuffer header = ByteBuffer.allocate(TablebaseFormat.HEADER_BYTES);
+      header.put(TablebaseFormat.MAGIC).put((byte)TablebaseFormat.VERSION).put((byte)pieces);
+      for (int i = 0; i < pieces; i++) {
+        header.put((byte)(colors[i].ordinal() << 3 | types[i].ordinal()));
+      }
+      header.clear();
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        channel.write(header);
+        ByteBuffer body = ByteBuffer.wrap(result);
+        while (body.hasRemaining()) {
+          channel.write(body);
+        }
+      }
+      tablebase.add(file);
+    }
+  }
+
+  private static long attacks(PieceType type, int square, long occupied) {
+    switch (type) {
+      case KNIGHT: return Attacks.knight(square);
+      case BISHOP: return Attacks.bishop(square, occupied);
+      case ROOK: return Attacks.rook(square, occupied);
+      case QUEEN: return Attacks.queen(square, occupied);
+      case KING: return Attacks.king(square);
+      default: throw new IllegalArgumentException("Tables are pawnless");
+    }
+  }
+
+  private static PieceType[] extra(PieceType[] types) {
+    return Arrays.copyOfRange(types, 2, types.length);
+  }
+
+  private static Color[] extra(Color[] colors) {
+    return Arrays.copyOfRange(colors, 2, colors.length);
+  }
+}
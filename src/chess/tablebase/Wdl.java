@@ -0,0 +1,10 @@
+package chess.tablebase;
+
+/**
+ * The outcome of a position with perfect play, for the side to move.
+ */
+public enum Wdl {
+  LOSS,
+  DRAW,
+  WIN
+}
@@ -0,0 +1,118 @@
+package chess.tournament;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.pgn.San;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The starting positions of a tournament, as FEN text.
+ *
+ * Self-play games from the initial position would mostly repeat each other, so every pair of
+ * games starts from a different opening, with each player taking white once.
+ */
+public final class Openings {
+
+  /**
+   * Short lines of common openings, in SAN, balanced enough for either side to win.
+   */
+  private static final String[] BUILT_IN = {
+    "e4 e5 Nf3 Nc6 Bb5 a6",
+    "e4 e5 Nf3 Nc6 Bc4 Bc5",
+    "e4 e5 Nf3 Nf6 Nxe5 d6",
+    "e4 c5 Nf3 d6 d4 cxd4 Nxd4 Nf6",
+    "e4 c5 Nf3 Nc6 d4 cxd4 Nxd4 g6",
+    "e4 c5 Nc3 Nc6 g3 g6",
+    "e4 e6 d4 d5 Nc3 Nf6",
+    "e4 e6 d4 d5 e5 c5",
+    "e4 c6 d4 d5 Nc3 dxe4 Nxe4 Bf5",
+    "e4 d5 exd5 Qxd5 Nc3 Qa5",
+    "e4 d6 d4 Nf6 Nc3 g6",
+    "d4 d5 c4 e6 Nc3 Nf6",
+    "d4 d5 c4 c6 Nf3 Nf6",
+    "d4 d5 c4 dxc4 Nf3 Nf6",
+    "d4 Nf6 c4 g6 Nc3 Bg7 e4 d6",
+    "d4 Nf6 c4 e6 Nc3 Bb4",
+    "d4 Nf6 c4 e6 Nf3 b6",
+    "d4 Nf6 c4 c5 d5 e6",
+    "d4 f5 g3 Nf6 Bg2 g6",
+    "c4 e5 Nc3 Nf6 g3 d5",
+    "c4 c5 Nf3 Nc6 Nc3 g6",
+    "Nf3 d5 g3 Nf6 Bg2 c6",
+    "Nf3 Nf6 c4 b6 g3 Bb7",
+    "f4 d5 Nf3 g6"
+  };
+
+  private final String[] fens;
+
+  private Openings(List<String> fens) {
+    if (fens.isEmpty()) {
+      throw new IllegalArgumentException("A tournament needs at least one opening");
+    }
+    this.fens = fens.toArray(new String[0]);
+  }
+
+  /**
+   * Gets the built-in openings.
+   * @return the openings, played out from the initial position.
+   */
+  public static Openings builtIn() {
+    List<String> fens = new ArrayList<>();
+    int[] buffer = new int[256];
+    for (String line : BUILT_IN) {
+      ChessMatch match = new ChessMatch();
+      for (String san : line.split(" ")) {
+        int move = San.parse(match, san, buffer);
+        buffer[0] = move;
+        match.playMoves(buffer, 1);
+      }
+      fens.add(match.toFen());
+    }
+    return new Openings(fens);
+  }
+
+  /**
+   * Reads the openings of a file holding one FEN position per line. Blank lines and lines
+   * starting with '#' are skipped.
+   * @param path the file.
+   * @return the openings.
+   * @throws IOException if the file cannot be read.
+   * @throws ChessException if a line is not a valid FEN position.
+   */
+  public static Openings read(Path path) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+    List<String> fens = new ArrayList<>();
+    while (buffer.hasRemaining()) {
+      int start = buffer.position();
+      byte first = buffer.get(start);
+      if (first == '\n' || first == '\r' || first == '#') {
+        while (buffer.hasRemaining() && buffer.get() != '\n') {
+          // Skip the line
+        }
+        continue;
+      }
+      fens.add(Fen.parse(buffer).toFen());
+    }
+    return new Openings(fens);
+  }
+
+  public int size() {
+    return fens.length;
+  }
+
+  /**
+   * Gets an opening.
+   * @param index the index of the opening, from 0 to size() - 1.
+   * @return the FEN text of the position.
+   */
+  public String get(int index) {
+    return fens[index];
+  }
+}
@@ -0,0 +1,35 @@
+package chess.tournament;
+
+import chess.ChessMatch;
+import chess.engine.SearchLimits;
+
+/**
+ * An engine taking part in a tournament.
+ *
+ * A tournament plays many games at once, so chooseMove is called from several threads at the
+ * same time, each with a match of its own. An implementation must keep any per-game state,
+ * such as a search or a transposition table, apart for each thread.
+ */
+public interface Player {
+
+  /**
+   * Gets the name of the player, as written in the results.
+   * @return the name.
+   */
+  String getName();
+
+  /**
+   * Prepares the player for a new game, before its clock starts; does nothing by default.
+   * @param match the game, in its starting position.
+   */
+  default void newGame(ChessMatch match) {
+  }
+
+  /**
+   * Chooses a move for the side to move. The match must be left in the position it was given in.
+   * @param match the game, which is not over.
+   * @param limits the budget of the move, worked out from the clock of the player.
+   * @return the encoded legal move.
+   */
+  int chooseMove(ChessMatch match, SearchLimits limits);
+}
@@ -0,0 +1,95 @@
+package chess.tournament;
+
+import chess.ChessMatch;
+import chess.book.OpeningBook;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.TranspositionTable;
+import chess.tablebase.Tablebase;
+
+/**
+ * A player that moves with the alpha-beta search of chess.engine.
+ *
+ * Every thread gets a transposition table of its own, allocated once and cleared at the start of
+ * each game, and a Search over the match it is playing, so threads never share search state.
+ * Only the opening book and the tablebase, which are read-only, are shared.
+ */
+public class SearchPlayer implements Player {
+
+  /**
+   * The search state of one thread: its table and the search of the game it is playing.
+   */
+  private static final class Worker {
+    final TranspositionTable table;
+    ChessMatch match;
+    Search search;
+
+    Worker(int megabytes) {
+      table = new TranspositionTable(megabytes);
+    }
+  }
+
+  private final String name;
+  private final ThreadLocal<Worker> workers;
+  private final OpeningBook book;
+  private volatile Tablebase tablebase;
+
+  /**
+   * Creates a player.
+   * @param name the name written in the results.
+   * @param tableMegabytes the size of the transposition table of each thread.
+   */
+  public SearchPlayer(String name, int tableMegabytes) {
+    this(name, tableMegabytes, null);
+  }
+
+  /**
+   * Creates a player that plays from an opening book while the game is in it.
+   * @param name the name written in the results.
+   * @param tableMegabytes the size of the transposition table of each thread.
+   * @param book the book, or null to always search.
+   */
+  public SearchPlayer(String name, int tableMegabytes, OpeningBook book) {
+    this.name = name;
+    this.workers = ThreadLocal.withInitial(() -> new Worker(tableMegabytes));
+    this.book = book;
+  }
+
+  /**
+   * Sets the endgame tablebase of the searches, from the next game on.
+   * @param tablebase the tablebase, or null to search every endgame.
+   */
+  public void setTablebase(Tablebase tablebase) {
+    this.tablebase = tablebase;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void newGame(ChessMatch match) {
+    Worker worker = workers.get();
+    // Results stored for the previous game would only make the games depend on their order
+    worker.table.clear();
+    worker.match = match;
+    worker.search = new Search(match, worker.table);
+    worker.search.setBook(book);
+    worker.search.setTablebase(tablebase);
+  }
+
+  @Override
+  public int chooseMove(ChessMatch match, SearchLimits limits) {
+    Worker worker = workers.get();
+    if (worker.match != match) {
+      newGame(match);
+    }
+    return worker.search.search(limits).getBestMove();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
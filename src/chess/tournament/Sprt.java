@@ -0,0 +1,148 @@
+package chess.tournament;
+
+/**
+ * A sequential probability ratio test between two Elo differences, and the Elo estimate of a
+ * match score.
+ *
+ * The test weighs the hypothesis that the first player is elo0 stronger than the second (H0)
+ * against the hypothesis that it is elo1 stronger (H1). The log-likelihood ratio uses the normal
+ * approximation of the generalized SPRT over the win, draw and loss counts, and the test ends
+ * as soon as it crosses one of the bounds set by the error rates alpha and beta.
+ */
+public final class Sprt {
+
+  /**
+   * The state of the test.
+   */
+  public enum Decision {
+    CONTINUE,
+    ACCEPT_H0,
+    ACCEPT_H1
+  }
+
+  private final double elo0;
+  private final double elo1;
+  private final double lowerBound;
+  private final double upperBound;
+
+  /**
+   * Creates a test.
+   * @param elo0 the Elo difference of the null hypothesis.
+   * @param elo1 the Elo difference of the alternative hypothesis, larger than elo0.
+   * @param alpha the probability of accepting H1 when H0 holds.
+   * @param beta the probability of accepting H0 when H1 holds.
+   */
+  public Sprt(double elo0, double elo1, double alpha, double beta) {
+    if (elo1 <= elo0 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+      throw new IllegalArgumentException("The test needs elo0 < elo1 and error rates between 0 and 1");
+    }
+    this.elo0 = elo0;
+    this.elo1 = elo1;
+    this.lowerBound = Math.log(beta / (1 - alpha));
+    this.upperBound = Math.log((1 - beta) / alpha);
+  }
+
+  public double getLowerBound() {
+    return lowerBound;
+  }
+
+  public double getUpperBound() {
+    return upperBound;
+  }
+
+  /**
+   * Computes the log-likelihood ratio of H1 against H0.
+   * @param wins the games won by the first player.
+   * @param draws the games drawn.
+   * @param losses the games lost by the first player.
+   * @return the ratio, 0 while the games do not tell the hypotheses apart.
+   */
+  public double llr(long wins, long draws, long losses) {
+    long games = wins + draws + losses;
+    double variance = variance(wins, draws, losses);
+    if (games == 0 || variance == 0) {
+      return 0;
+    }
+    double score = score(wins, draws, losses);
+    double score0 = expectedScore(elo0);
+    double score1 = expectedScore(elo1);
+    return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+  }
+
+  /**
+   * Decides the test.
+   * @param wins the games won by the first player.
+   * @param draws the games drawn.
+   * @param losses the games lost by the first player.
+   * @return the hypothesis accepted, or CONTINUE if more games are needed.
+   */
+  public Decision decide(long wins, long draws, long losses) {
+    double llr = llr(wins, draws, losses);
+    if (llr >= upperBound) {
+      return Decision.ACCEPT_H1;
+    }
+    if (llr <= lowerBound) {
+      return Decision.ACCEPT_H0;
+    }
+    return Decision.CONTINUE;
+  }
+
+  /**
+   * Estimates the Elo difference between the players from their score.
+   * @param wins the games won by the first player.
+   * @param draws the games drawn.
+   * @param losses the games lost by the first player.
+   * @return the difference, positive if the first player is stronger; infinite after a clean sweep.
+   */
+  public static double elo(long wins, long draws, long losses) {
+    return elo(score(wins, draws, losses));
+  }
+
+  /**
+   * Estimates the half-width of the 95% confidence interval of the Elo difference.
+   * @param wins the games won by the first player.
+   * @param draws the games drawn.
+   * @param losses the games lost by the first player.
+   * @return the margin in Elo, or NaN when there are no games.
+   */
+  public static double eloMargin(long wins, long draws, long losses) {
+    long games = wins + draws + losses;
+    if (games == 0) {
+      return Double.NaN;
+    }
+    double score = score(wins, draws, losses);
+    double deviation = 1.96 * Math.sqrt(variance(wins, draws, losses) / games);
+    return (elo(Math.min(score + deviation, 1)) - elo(Math.max(score - deviation, 0))) / 2;
+  }
+
+  /**
+   * Gets the share of the points won by the first player.
+   * @param wins the games won by the first player.
+   * @param draws the games drawn.
+   * @param losses the games lost by the first player.
+   * @return the score, from 0 to 1, or NaN when there are no games.
+   */
+  public static double score(long wins, long draws, long losses) {
+    return (wins + draws / 2.0) / (wins + draws + losses);
+  }
+
+  /**
+   * Gets the variance of the result of one game around the mean score.
+   */
+  private static double variance(long wins, long draws, long losses) {
+    long games = wins + draws + losses;
+    if (games == 0) {
+      return 0;
+    }
+    double score = score(wins, draws, losses);
+    return (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score) + losses * score * score) / games;
+  }
+
+  private static double expectedScore(double elo) {
+    return 1 / (1 + Math.pow(10, -elo / 400));
+  }
+
+  private static double elo(double score) {
+    return -400 * Math.log10(1 / score - 1);
+  }
+}
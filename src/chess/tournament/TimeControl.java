@@ -0,0 +1,101 @@
+package chess.tournament;
+
+import chess.engine.SearchLimits;
+
+/**
+ * The time a player has for a game: a clock with a base time and an increment per move, or a
+ * fixed budget for every move, such as a depth or a node count.
+ *
+ * With a clock, each move gets an equal share of the remaining time over the moves that are
+ * likely to follow, plus most of the increment. A player whose clock runs out loses the game.
+ */
+public final class TimeControl {
+
+  private static final int MOVES_TO_GO = 30;
+  private static final int OVERHEAD_MILLIS = 2;
+
+  private final long baseMillis;
+  private final long incrementMillis;
+  private final SearchLimits fixed;
+
+  private TimeControl(long baseMillis, long incrementMillis, SearchLimits fixed) {
+    this.baseMillis = baseMillis;
+    this.incrementMillis = incrementMillis;
+    this.fixed = fixed;
+  }
+
+  /**
+   * Creates a clock.
+   * @param baseMillis the time for the whole game, in milliseconds.
+   * @param incrementMillis the time added after each move, in milliseconds.
+   * @return the time control.
+   */
+  public static TimeControl clock(long baseMillis, long incrementMillis) {
+    if (baseMillis <= 0 || incrementMillis < 0) {
+      throw new IllegalArgumentException("A clock needs a positive base time and an increment of at least zero");
+    }
+    return new TimeControl(baseMillis, incrementMillis, null);
+  }
+
+  /**
+   * Creates a fixed budget for every move, without a clock.
+   * @param limits the budget of each move.
+   * @return the time control.
+   */
+  public static TimeControl fixed(SearchLimits limits) {
+    return new TimeControl(0, 0, limits);
+  }
+
+  /**
+   * Reads a clock written as base+increment, in seconds, such as "10+0.1" or "60".
+   * @param text the time control.
+   * @return the time control.
+   * @throws IllegalArgumentException if the text is not a time control.
+   */
+  public static TimeControl parse(String text) {
+    int plus = text.indexOf('+');
+    try {
+      double base = Double.parseDouble((plus < 0) ? text : text.substring(0, plus));
+      double increment = (plus < 0) ? 0 : Double.parseDouble(text.substring(plus + 1));
+      return clock(Math.round(base * 1000), Math.round(increment * 1000));
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid time control '" + text + "'");
+    }
+  }
+
+  public boolean isClock() {
+    return fixed == null;
+  }
+
+  public long getBaseMillis() {
+    return baseMillis;
+  }
+
+  public long getIncrementMillis() {
+    return incrementMillis;
+  }
+
+  /**
+   * Works out the budget of the next move.
+   * @param remainingMillis the time left on the clock of the player; ignored by a fixed budget.
+   * @return the budget.
+   */
+  public SearchLimits limits(long remainingMillis) {
+    if (fixed != null) {
+      return fixed;
+    }
+    long share = remainingMillis / MOVES_TO_GO + incrementMillis * 3 / 4;
+    // Keep a margin for the time spent outside the search, so the clock does not fall
+    long safe = remainingMillis - remainingMillis / 10 - OVERHEAD_MILLIS;
+    return SearchLimits.time(Math.max(Math.min(share, safe), 1));
+  }
+
+  @Override
+  public String toString() {
+    if (fixed != null) {
+      return fixed.toString();
+    }
+    return (baseMillis / 1000.0) + "+" + (incrementMillis / 1000.0);
+  }
+}
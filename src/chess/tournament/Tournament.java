@@ -0,0 +1,300 @@
+package chess.tournament;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.Move;
+import chess.engine.SearchLimits;
+import chess.record.GameRecord;
+import chess.record.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays a match of many games between two players, on all the cores of the machine.
+ *
+ * Each game is a task of a work-stealing pool and runs from start to end on one thread, with a
+ * match, clocks and searches of its own, so the threads share nothing while they play. The only
+ * shared state is the score, kept in LongAdder counters that are updated once per game.
+ *
+ * Games come in pairs: both games of a pair start from the same opening, and each player has
+ * white in one of them. The counters may be read from any thread while a tournament runs.
+ */
+public class Tournament {
+
+  /**
+   * Receives every finished game, on the thread that played it.
+   */
+  public interface Listener {
+
+    /**
+     * Called once per game, possibly from several threads at once.
+     * @param game the game.
+     */
+    void gameFinished(TournamentGame game);
+  }
+
+  /** The default number of plies after which a game is adjudicated as a draw. */
+  public static final int DEFAULT_MAX_PLIES = 400;
+
+  private final Player first;
+  private final Player second;
+  private final TimeControl firstTime;
+  private final TimeControl secondTime;
+  private final Openings openings;
+  private final int threads;
+  private int maxPlies = DEFAULT_MAX_PLIES;
+  private Sprt sprt;
+
+  private final LongAdder wins = new LongAdder();
+  private final LongAdder draws = new LongAdder();
+  private final LongAdder losses = new LongAdder();
+  private final LongAdder plies = new LongAdder();
+  private final LongAdder timeForfeits = new LongAdder();
+  private volatile Sprt.Decision decision = Sprt.Decision.CONTINUE;
+  private volatile long startNanos;
+
+  /**
+   * Creates a tournament.
+   * @param first the first player; scores and Elo are from its point of view.
+   * @param firstTime the time control of the first player.
+   * @param second the second player.
+   * @param secondTime the time control of the second player.
+   * @param openings the starting positions.
+   * @param threads the number of games played at once.
+   */
+  public Tournament(Player first, TimeControl firstTime, Player second, TimeControl secondTime, Openings openings, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Need at least one thread");
+    }
+    this.first = first;
+    this.second = second;
+    this.firstTime = firstTime;
+    this.secondTime = secondTime;
+    this.openings = openings;
+    this.threads = threads;
+  }
+
+  /**
+   * Sets the number of plies after which an unfinished game is adjudicated as a draw.
+   * @param maxPlies the limit.
+   */
+  public void setMaxPlies(int maxPlies) {
+    if (maxPlies < 1) {
+      throw new IllegalArgumentException("The ply limit must be positive");
+    }
+    this.maxPlies = maxPlies;
+  }
+
+  /**
+   * Sets a test that stops the tournament as soon as it is decided.
+   * @param sprt the test, or null to play every game.
+   */
+  public void setSprt(Sprt sprt) {
+    this.sprt = sprt;
+  }
+
+  /**
+   * Plays the games and waits for them to finish. Once the test, if any, is decided, the games
+   * that have not started yet are skipped.
+   * @param games the number of games to play; an odd number leaves the last pair incomplete.
+   * @param listener receives each game as it finishes, or null.
+   */
+  public void run(int games, Listener listener) {
+    startNanos = System.nanoTime();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(games);
+      for (int i = 0; i < games; i++) {
+        int index = i;
+        tasks.add(pool.submit(() -> {
+          if (decision == Sprt.Decision.CONTINUE) {
+            TournamentGame game = play(index);
+            if (listener != null) {
+              listener.gameFinished(game);
+            }
+          }
+        }));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Plays one game to its end and adds it to the score.
+   */
+  private TournamentGame play(int index) {
+    String fen = openings.get((index / 2) % openings.size());
+    boolean firstIsWhite = (index % 2) == 0;
+    Player white = firstIsWhite ? first : second;
+    Player black = firstIsWhite ? second : first;
+    TimeControl whiteTime = firstIsWhite ? firstTime : secondTime;
+    TimeControl blackTime = firstIsWhite ? secondTime : firstTime;
+
+    ChessMatch match = ChessMatch.fromFen(fen);
+    white.newGame(match);
+    black.newGame(match);
+    long whiteClock = whiteTime.getBaseMillis();
+    long blackClock = blackTime.getBaseMillis();
+    int[] move = new int[1];
+    Result result;
+    String termination;
+    while (true) {
+      if (match.getCheckMate()) {
+        result = (match.getCurrentPlayer() == Color.WHITE) ? Result.WHITE_WINS : Result.BLACK_WINS;
+        termination = "checkmate";
+        break;
+      }
+      if (match.getDraw()) {
+        result = Result.DRAW;
+        termination = match.getDrawReason().name().toLowerCase().replace('_', '-');
+        break;
+      }
+      if (match.getPly() >= maxPlies) {
+        result = Result.DRAW;
+        termination = "moves";
+        break;
+      }
+
+      boolean whiteToMove = match.getCurrentPlayer() == Color.WHITE;
+      TimeControl time = whiteToMove ? whiteTime : blackTime;
+      SearchLimits limits = time.limits(whiteToMove ? whiteClock : blackClock);
+      long start = System.nanoTime();
+      move[0] = (whiteToMove ? white : black).chooseMove(match, limits);
+      long elapsed = (System.nanoTime() - start) / 1_000_000;
+      if (move[0] == Move.NONE) {
+        throw new IllegalStateException("No move from " + (whiteToMove ? white : black) + " in " + match.toFen());
+      }
+      if (time.isClock()) {
+        long left = (whiteToMove ? whiteClock : blackClock) - elapsed;
+        if (left < 0) {
+          result = whiteToMove ? Result.BLACK_WINS : Result.WHITE_WINS;
+          termination = "time";
+          timeForfeits.increment();
+          break;
+        }
+        if (whiteToMove) {
+          whiteClock = left + time.getIncrementMillis();
+        }
+        else {
+          blackClock = left + time.getIncrementMillis();
+        }
+      }
+      match.playMoves(move, 1);
+    }
+
+    int count = match.getPly();
+    int[] moves = new int[count];
+    for (int i = 0; i < count; i++) {
+      moves[i] = match.getMove(i);
+    }
+    score(result, firstIsWhite);
+    plies.add(count);
+    return new TournamentGame(index, white, black, new GameRecord(fen, moves, count, result), termination);
+  }
+
+  private void score(Result result, boolean firstIsWhite) {
+    if (result == Result.DRAW) {
+      draws.increment();
+    }
+    else if ((result == Result.WHITE_WINS) == firstIsWhite) {
+      wins.increment();
+    }
+    else {
+      losses.increment();
+    }
+    Sprt test = sprt;
+    if (test != null && decision == Sprt.Decision.CONTINUE) {
+      Sprt.Decision d = test.decide(wins.sum(), draws.sum(), losses.sum());
+      if (d != Sprt.Decision.CONTINUE) {
+        decision = d;
+      }
+    }
+  }
+
+  public Player getFirst() {
+    return first;
+  }
+
+  public Player getSecond() {
+    return second;
+  }
+
+  /**
+   * Gets the games won by the first player so far.
+   * @return the number of wins.
+   */
+  public long getWins() {
+    return wins.sum();
+  }
+
+  public long getDraws() {
+    return draws.sum();
+  }
+
+  /**
+   * Gets the games lost by the first player so far.
+   * @return the number of losses.
+   */
+  public long getLosses() {
+    return losses.sum();
+  }
+
+  public long getGames() {
+    return wins.sum() + draws.sum() + losses.sum();
+  }
+
+  public long getPlies() {
+    return plies.sum();
+  }
+
+  public long getTimeForfeits() {
+    return timeForfeits.sum();
+  }
+
+  /**
+   * Gets the state of the test.
+   * @return the accepted hypothesis, or CONTINUE while undecided or without a test.
+   */
+  public Sprt.Decision getDecision() {
+    return decision;
+  }
+
+  /**
+   * Gets the log-likelihood ratio of the test over the games played so far.
+   * @return the ratio, or NaN without a test.
+   */
+  public double getLlr() {
+    Sprt test = sprt;
+    return (test == null) ? Double.NaN : test.llr(getWins(), getDraws(), getLosses());
+  }
+
+  /**
+   * Gets the Elo difference between the players estimated from the games played so far.
+   * @return the difference, positive if the first player is stronger.
+   */
+  public double getElo() {
+    return Sprt.elo(getWins(), getDraws(), getLosses());
+  }
+
+  /**
+   * Gets the half-width of the 95% confidence interval of getElo().
+   * @return the margin in Elo.
+   */
+  public double getEloMargin() {
+    return Sprt.eloMargin(getWins(), getDraws(), getLosses());
+  }
+
+  public double getGamesPerSecond() {
+    double seconds = (System.nanoTime() - startNanos) / 1e9;
+    return getGames() / Math.max(seconds, 1e-9);
+  }
+}
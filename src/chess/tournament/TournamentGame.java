@@ -0,0 +1,61 @@
+package chess.tournament;
+
+import chess.record.GameRecord;
+import chess.record.Result;
+
+/**
+ * A finished game of a tournament.
+ */
+public final class TournamentGame {
+
+  private final int index;
+  private final Player white;
+  private final Player black;
+  private final GameRecord record;
+  private final String termination;
+
+  TournamentGame(int index, Player white, Player black, GameRecord record, String termination) {
+    this.index = index;
+    this.white = white;
+    this.black = black;
+    this.record = record;
+    this.termination = termination;
+  }
+
+  /**
+   * Gets the number of the game. Games 2k and 2k + 1 start from the same opening, with colors swapped.
+   * @return the index, from 0.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public Player getWhite() {
+    return white;
+  }
+
+  public Player getBlack() {
+    return black;
+  }
+
+  /**
+   * Gets the game itself: the opening position, the moves played from it and the result.
+   * @return the record.
+   */
+  public GameRecord getRecord() {
+    return record;
+  }
+
+  public Result getResult() {
+    return record.getResult();
+  }
+
+  /**
+   * Gets how the game ended.
+   * @return "checkmate", "time", "moves" for a draw adjudicated at the ply limit, or the
+   *     DrawReason in lower case with dashes, such as "threefold-repetition".
+   */
+  public String getTermination() {
+    return termination;
+  }
+}